@@ -0,0 +1,121 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.lang.util.CalendarUtils;
+import com.aoapps.lang.util.UnmodifiableCalendar;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * The day and instant that task statuses and priorities are computed as of.
+ * <p>
+ * Each request uses a single snapshot for all of its computations, so a request
+ * spanning midnight does not mix two days.
+ * </p>
+ *
+ * @see  TaskUtil#getAsOf(javax.servlet.http.HttpServletRequest)
+ */
+public final class AsOf {
+
+	/**
+	 * Gets the current day and instant.
+	 */
+	public static AsOf now() {
+		return valueOf(System.currentTimeMillis());
+	}
+
+	/**
+	 * Gets the given instant, along with the day containing it in the default time zone.
+	 */
+	public static AsOf valueOf(long now) {
+		GregorianCalendar today = new GregorianCalendar();
+		today.setTimeInMillis(now);
+		return new AsOf(today, now);
+	}
+
+	/**
+	 * Gets the given day and instant.
+	 *
+	 * @param  day  Any time within the day, only the date is used
+	 * @param  now  The instant, which is not required to be within the day
+	 */
+	public static AsOf valueOf(Calendar day, long now) {
+		GregorianCalendar today = new GregorianCalendar();
+		today.setTimeInMillis(day.getTimeInMillis());
+		return new AsOf(today, now);
+	}
+
+	private final UnmodifiableCalendar today;
+	private final long todayMillis;
+	private final long now;
+
+	private AsOf(GregorianCalendar today, long now) {
+		today.set(Calendar.HOUR_OF_DAY, 0);
+		today.set(Calendar.MINUTE, 0);
+		today.set(Calendar.SECOND, 0);
+		today.set(Calendar.MILLISECOND, 0);
+		this.today = UnmodifiableCalendar.wrap(today);
+		this.todayMillis = today.getTimeInMillis();
+		this.now = now;
+	}
+
+	/**
+	 * Gets the start of the day.
+	 */
+	@SuppressWarnings("ReturnOfDateField") // UnmodifiableCalendar
+	public UnmodifiableCalendar getToday() {
+		return today;
+	}
+
+	/**
+	 * Gets the start of the day, in milliseconds.
+	 */
+	public long getTodayMillis() {
+		return todayMillis;
+	}
+
+	/**
+	 * Gets the instant, in milliseconds.
+	 */
+	public long getNow() {
+		return now;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof AsOf)) return false;
+		AsOf other = (AsOf)obj;
+		return todayMillis == other.todayMillis && now == other.now;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(todayMillis) * 31 + Long.hashCode(now);
+	}
+
+	@Override
+	public String toString() {
+		return CalendarUtils.formatDate(today) + " @ " + now;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.lang.util.UnmodifiableCalendar;
+import com.pragmatickm.task.model.Task;
+import com.pragmatickm.task.model.TaskLog;
+import com.semanticcms.core.model.ElementRef;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+
+/**
+ * An application-scoped record of the first incomplete scheduled date of non-relative recurring tasks,
+ * along with the version of the task log it was found in.
+ * <p>
+ * The first incomplete scheduled date depends only on the task's "on" date,
+ * recurring schedule, and task log.  Pages are captured again for each
+ * request, creating new {@link Task} instances, so marks are keyed by
+ * {@link ElementRef} and reused while the schedule on the page and the version
+ * of the task log are unchanged.  This avoids scanning the full schedule
+ * history from "on" when only the day or the completion of "Do Before" tasks
+ * has changed.
+ * </p>
+ * <p>
+ * When the task log changes, the scan starts over from "on", since an edited
+ * task log may have removed completions before the previous date.
+ * </p>
+ */
+final class FirstIncompleteCache {
+
+	/**
+	 * The maximum number of marks retained.
+	 */
+	private static final int MAX_ENTRIES = 65536;
+
+	private static final String APPLICATION_ATTRIBUTE = FirstIncompleteCache.class.getName();
+
+	static FirstIncompleteCache getInstance(ServletContext servletContext) {
+		FirstIncompleteCache instance = (FirstIncompleteCache)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+		if(instance == null) {
+			synchronized(FirstIncompleteCache.class) {
+				instance = (FirstIncompleteCache)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+				if(instance == null) {
+					instance = new FirstIncompleteCache();
+					servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+				}
+			}
+		}
+		return instance;
+	}
+
+	private static class Mark {
+
+		private final TaskSchedule schedule;
+		private final TaskLogVersion taskLogVersion;
+		private final UnmodifiableCalendar firstIncomplete;
+
+		private Mark(TaskSchedule schedule, TaskLogVersion taskLogVersion, UnmodifiableCalendar firstIncomplete) {
+			this.schedule = schedule;
+			this.taskLogVersion = taskLogVersion;
+			this.firstIncomplete = firstIncomplete;
+		}
+	}
+
+	/**
+	 * Bounded, evicting the least recently used marks.
+	 */
+	private final Map<ElementRef, Mark> marks = new LinkedHashMap<ElementRef, Mark>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ElementRef, Mark> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private FirstIncompleteCache() {
+	}
+
+	/**
+	 * Gets the first incomplete scheduled date of a non-relative recurring task.
+	 *
+	 * @param  taskLogVersion  The version of the task log, or {@code null} when unknown,
+	 *                         in which case the date is always found from the task log.
+	 *
+	 * @see  TaskLog#getFirstIncompleteScheduledOn(java.util.Calendar, com.aoapps.hodgepodge.schedule.Recurring)
+	 */
+	UnmodifiableCalendar getFirstIncompleteScheduledOn(Task task, TaskLogVersion taskLogVersion) throws IOException {
+		ElementRef elementRef = null;
+		TaskSchedule schedule = null;
+		if(taskLogVersion != null) {
+			elementRef = task.getElementRef();
+			schedule = TaskSchedule.of(task);
+			Mark mark;
+			synchronized(marks) {
+				mark = marks.get(elementRef);
+			}
+			if(
+				mark != null
+				&& mark.schedule.equals(schedule)
+				&& mark.taskLogVersion.equals(taskLogVersion)
+			) return mark.firstIncomplete;
+		}
+		UnmodifiableCalendar firstIncomplete = UnmodifiableCalendar.wrap(
+			task.getTaskLog().getFirstIncompleteScheduledOn(task.getOn(), task.getRecurring())
+		);
+		if(taskLogVersion != null) {
+			Mark mark = new Mark(schedule, taskLogVersion, firstIncomplete);
+			synchronized(marks) {
+				marks.put(elementRef, mark);
+			}
+		}
+		return firstIncomplete;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values in power-of-two buckets.
+ * Bucket zero counts values of zero, and bucket <code>i</code> counts values
+ * in the range <code>[2<sup>i-1</sup>, 2<sup>i</sup>)</code>.
+ */
+final class Histogram {
+
+	private static final int NUM_BUCKETS = Long.SIZE + 1;
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+	/**
+	 * Records a value.  Negative values are recorded as zero.
+	 */
+	void record(long value) {
+		if(value < 0) value = 0;
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+		buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * Gets a snapshot of the histogram.  The values are read without locking, so
+	 * may be slightly inconsistent with each other while values are being recorded.
+	 */
+	HistogramSnapshot getSnapshot() {
+		int length = NUM_BUCKETS;
+		while(length > 0 && buckets.get(length - 1) == 0) length--;
+		long[] counts = new long[length];
+		for(int i = 0; i < length; i++) counts[i] = buckets.get(i);
+		return new HistogramSnapshot(count.sum(), total.sum(), max.get(), counts);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+/**
+ * The values recorded in a histogram at one point in time.
+ *
+ * @see  TaskMetricsMXBean
+ */
+public class HistogramSnapshot {
+
+	private final long count;
+	private final long total;
+	private final long max;
+	private final long[] buckets;
+
+	HistogramSnapshot(long count, long total, long max, long[] buckets) {
+		this.count = count;
+		this.total = total;
+		this.max = max;
+		this.buckets = buckets;
+	}
+
+	/**
+	 * Gets the number of values recorded.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the sum of all values recorded.
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the largest value recorded.
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets the mean of all values recorded or {@code 0} when none recorded.
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : ((double)total / count);
+	}
+
+	/**
+	 * Gets the count of values in each power-of-two bucket.  Bucket zero counts
+	 * values of zero, and bucket <code>i</code> counts values in the range
+	 * <code>[2<sup>i-1</sup>, 2<sup>i</sup>)</code>.  Trailing empty buckets are
+	 * omitted.
+	 */
+	public long[] getBuckets() {
+		return buckets.clone();
+	}
+}
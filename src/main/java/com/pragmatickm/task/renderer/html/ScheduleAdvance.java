@@ -0,0 +1,143 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.hodgepodge.schedule.Recurring;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Advances a recurring schedule to the first occurrence after a given instant.
+ * <p>
+ * Schedules that recur on a fixed number of days, such as daily or every few
+ * weeks, are advanced directly.  All other schedules are advanced by stepping
+ * through {@link Recurring#getScheduleIterator(java.util.Calendar)}.
+ * </p>
+ */
+final class ScheduleAdvance {
+
+	/**
+	 * The maximum number of recurring displays retained in {@link #periods}.
+	 */
+	private static final int MAX_CACHED = 1024;
+
+	private static final Pattern EVERY_DAY = Pattern.compile("(?i)(?:every\\s+day|daily)");
+	private static final Pattern EVERY_N_DAYS = Pattern.compile("(?i)every\\s+(\\d+)\\s+days");
+	private static final Pattern EVERY_WEEK = Pattern.compile("(?i)(?:every\\s+week|weekly)");
+	private static final Pattern EVERY_N_WEEKS = Pattern.compile("(?i)every\\s+(\\d+)\\s+weeks");
+
+	/**
+	 * The period in days by recurring display, or {@code 0} when not a fixed number of days.
+	 */
+	private static final ConcurrentMap<String, Integer> periods = new ConcurrentHashMap<>();
+
+	private static int parsePeriod(String display) {
+		if(EVERY_DAY.matcher(display).matches()) return 1;
+		if(EVERY_WEEK.matcher(display).matches()) return 7;
+		try {
+			Matcher m = EVERY_N_DAYS.matcher(display);
+			if(m.matches()) return Integer.parseInt(m.group(1));
+			m = EVERY_N_WEEKS.matcher(display);
+			if(m.matches()) return Math.multiplyExact(Integer.parseInt(m.group(1)), 7);
+		} catch(NumberFormatException | ArithmeticException e) {
+			// Too large, not a fixed number of days
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the period in days of a recurring schedule.
+	 *
+	 * @return  The period or {@code 0} when the schedule does not recur on a fixed number of days
+	 */
+	private static int getPeriod(Recurring recurring) {
+		String display = recurring.getRecurringDisplay();
+		Integer period = periods.get(display);
+		if(period == null) {
+			period = parsePeriod(display);
+			if(periods.size() < MAX_CACHED) periods.putIfAbsent(display, period);
+		}
+		return period;
+	}
+
+	/**
+	 * Gets the number of days since the epoch of the date of a calendar, ignoring its time of day.
+	 */
+	static long toEpochDay(Calendar cal) {
+		return LocalDate.of(
+			cal.get(Calendar.YEAR),
+			cal.get(Calendar.MONTH) + 1,
+			cal.get(Calendar.DAY_OF_MONTH)
+		).toEpochDay();
+	}
+
+	/**
+	 * Gets the first occurrence of a schedule, starting from the given date, that is after the given instant.
+	 *
+	 * @param  from   The date the schedule is started from
+	 * @param  after  The instant, in milliseconds, the occurrence must be after
+	 */
+	static Calendar getFirstAfter(Recurring recurring, Calendar from, long after) {
+		Iterator<Calendar> iter = recurring.getScheduleIterator(from);
+		Calendar first = iter.next();
+		if(first.getTimeInMillis() > after) return first;
+		int period = getPeriod(recurring);
+		if(period > 0) {
+			Calendar second = iter.next();
+			// Only jump when the schedule is confirmed to step by the period
+			if(toEpochDay(second) - toEpochDay(first) == period) {
+				if(second.getTimeInMillis() > after) return second;
+				Calendar afterCal = (Calendar)first.clone();
+				afterCal.setTimeInMillis(after);
+				long steps = (toEpochDay(afterCal) - toEpochDay(first)) / period;
+				if(steps <= Integer.MAX_VALUE / period) {
+					Calendar next = (Calendar)first.clone();
+					next.add(Calendar.DAY_OF_MONTH, (int)steps * period);
+					// Within one or two periods, depending on time of day
+					while(next.getTimeInMillis() <= after) {
+						next.add(Calendar.DAY_OF_MONTH, period);
+					}
+					return next;
+				}
+			}
+			first = second;
+		}
+		// Step through the schedule
+		Calendar next = first;
+		while(next.getTimeInMillis() <= after) {
+			next = iter.next();
+		}
+		return next;
+	}
+
+	/**
+	 * Make no instances.
+	 */
+	private ScheduleAdvance() {
+	}
+}
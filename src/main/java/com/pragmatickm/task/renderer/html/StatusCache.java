@@ -0,0 +1,178 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.model.ElementRef;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletContext;
+
+/**
+ * An application-scoped cache of task statuses, shared between requests.
+ * <p>
+ * Pages are captured again for each request, creating new {@link Task}
+ * instances, so entries are keyed by {@link ElementRef}.  A status only
+ * changes when the task's schedule on the page changes, its task log changes,
+ * the completion of its doBefores changes, or the day changes.  Each entry
+ * records these inputs and is only used while they all still match.  Entries
+ * do not hold onto the task or its page.
+ * </p>
+ * <p>
+ * Entries are also keyed by day, so statuses computed as of other days, such
+ * as for a forecast, do not displace those of the current day.  The cache is
+ * bounded, evicting the least recently used entries, which includes the
+ * entries of past days.
+ * </p>
+ */
+final class StatusCache {
+
+	/**
+	 * The maximum number of statuses cached.
+	 */
+	private static final int MAX_ENTRIES = 65536;
+
+	private static final String APPLICATION_ATTRIBUTE = StatusCache.class.getName();
+
+	static StatusCache getInstance(ServletContext servletContext) {
+		StatusCache instance = (StatusCache)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+		if(instance == null) {
+			synchronized(StatusCache.class) {
+				instance = (StatusCache)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+				if(instance == null) {
+					instance = new StatusCache();
+					servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+				}
+			}
+		}
+		return instance;
+	}
+
+	private static class Key {
+
+		private final ElementRef elementRef;
+		private final long day;
+
+		private Key(ElementRef elementRef, long day) {
+			this.elementRef = elementRef;
+			this.day = day;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key)) return false;
+			Key other = (Key)obj;
+			return day == other.day && elementRef.equals(other.elementRef);
+		}
+
+		@Override
+		public int hashCode() {
+			return elementRef.hashCode() * 31 + Long.hashCode(day);
+		}
+	}
+
+	private static class CachedStatus {
+
+		private final TaskSchedule schedule;
+		private final TaskLogVersion taskLogVersion;
+		private final boolean allDoBeforesCompleted;
+		private final StatusResult status;
+
+		private CachedStatus(TaskSchedule schedule, TaskLogVersion taskLogVersion, boolean allDoBeforesCompleted, StatusResult status) {
+			this.schedule = schedule;
+			this.taskLogVersion = taskLogVersion;
+			this.allDoBeforesCompleted = allDoBeforesCompleted;
+			this.status = status;
+		}
+	}
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	private final Map<Key, CachedStatus> entries = new LinkedHashMap<Key, CachedStatus>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, CachedStatus> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private StatusCache() {
+	}
+
+	/**
+	 * Gets a cached status.
+	 *
+	 * @param  today  The start of the day the status is for, in milliseconds
+	 *
+	 * @return  The status or {@code null} when not cached or any of its inputs have changed
+	 */
+	StatusResult get(Task task, long today, TaskLogVersion taskLogVersion, boolean allDoBeforesCompleted) {
+		Key key = new Key(task.getElementRef(), today);
+		CachedStatus entry;
+		synchronized(entries) {
+			entry = entries.get(key);
+		}
+		if(
+			entry != null
+			&& entry.schedule.equals(TaskSchedule.of(task))
+			&& entry.taskLogVersion.equals(taskLogVersion)
+			&& entry.allDoBeforesCompleted == allDoBeforesCompleted
+		) {
+			hits.increment();
+			return entry.status;
+		} else {
+			misses.increment();
+			return null;
+		}
+	}
+
+	/**
+	 * Caches a status.
+	 *
+	 * @param  today  The start of the day the status was computed for, in milliseconds
+	 */
+	void put(Task task, long today, TaskLogVersion taskLogVersion, boolean allDoBeforesCompleted, StatusResult status) {
+		Key key = new Key(task.getElementRef(), today);
+		CachedStatus entry = new CachedStatus(TaskSchedule.of(task), taskLogVersion, allDoBeforesCompleted, status);
+		synchronized(entries) {
+			entries.put(key, entry);
+		}
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+
+	int size() {
+		synchronized(entries) {
+			return entries.size();
+		}
+	}
+}
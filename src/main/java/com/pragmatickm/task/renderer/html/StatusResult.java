@@ -22,9 +22,12 @@
  */
 package com.pragmatickm.task.renderer.html;
 
+import com.aoapps.lang.util.CalendarUtils;
 import com.aoapps.lang.util.UnmodifiableCalendar;
 import com.pragmatickm.task.model.TaskLog;
 import java.util.Calendar;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class StatusResult {
 
@@ -78,14 +81,177 @@ public class StatusResult {
 		}
 	}
 
-	private final Style style;
-	private final String description;
+	/**
+	 * The kinds of descriptions.  All but {@link #LITERAL} are built from the
+	 * style and date only, so are only built when first needed.
+	 */
+	private enum DescriptionKind {
+		LITERAL,
+		NEW,
+		NEW_WAITING_DO_BEFORE,
+		DUE_TODAY,
+		DUE_TODAY_WAITING_DO_BEFORE,
+		LATE,
+		LATE_WAITING_DO_BEFORE,
+		WAITING_UNTIL
+	}
+
+	private static final Style[] STYLES = Style.values();
+	private static final DescriptionKind[] DESCRIPTION_KINDS = DescriptionKind.values();
+
+	private static final byte COMPLETED_SCHEDULE = 1;
+	private static final byte READY_SCHEDULE = 2;
+	private static final byte FUTURE_SCHEDULE = 4;
+
+	/**
+	 * The day used in the keys of {@link #canonical} when there is no date.
+	 */
+	private static final int NO_DATE = Integer.MIN_VALUE;
+
+	/**
+	 * The maximum number of canonical results retained in {@link #canonical}.
+	 */
+	private static final int MAX_CANONICAL = 4096;
+
+	/**
+	 * The shared results without comments, by kind, flags, and date.
+	 */
+	private static final ConcurrentMap<Long, StatusResult> canonical = new ConcurrentHashMap<>();
+
+	private static final StatusResult NEW = new StatusResult(DescriptionKind.NEW, Style.NEW, null, null, READY_SCHEDULE, null);
+
+	private static final StatusResult NEW_WAITING_DO_BEFORE = new StatusResult(DescriptionKind.NEW_WAITING_DO_BEFORE, Style.NEW_WAITING_DO_AFTER, null, null, (byte)0, null);
+
+	private static byte getFlags(boolean completedSchedule, boolean readySchedule, boolean futureSchedule) {
+		if(completedSchedule && readySchedule) throw new AssertionError("A task may not be both completed and ready");
+		if(readySchedule && futureSchedule) throw new AssertionError("A task may not be both ready and future");
+		return toFlags(completedSchedule, readySchedule, futureSchedule);
+	}
+
+	/**
+	 * Combines the flags without checking them.  A status from the task log may
+	 * be both ready and future, such as an incomplete entry on a future schedule.
+	 */
+	private static byte toFlags(boolean completedSchedule, boolean readySchedule, boolean futureSchedule) {
+		return (byte)(
+			(completedSchedule ? COMPLETED_SCHEDULE : 0)
+			| (readySchedule ? READY_SCHEDULE : 0)
+			| (futureSchedule ? FUTURE_SCHEDULE : 0)
+		);
+	}
+
+	private static Style getStyle(DescriptionKind kind) {
+		switch(kind) {
+			case NEW                         : return Style.NEW;
+			case NEW_WAITING_DO_BEFORE       : return Style.NEW_WAITING_DO_AFTER;
+			case DUE_TODAY                   : return Style.DUE_TODAY;
+			case DUE_TODAY_WAITING_DO_BEFORE : return Style.DUE_TODAY_WAITING_DO_AFTER;
+			case LATE                        : return Style.LATE;
+			case LATE_WAITING_DO_BEFORE      : return Style.LATE_WAITING_DO_AFTER;
+			case WAITING_UNTIL               : return Style.IN_FUTURE;
+			default                          : throw new AssertionError("Unexpected value for kind: " + kind);
+		}
+	}
+
+	/**
+	 * Gets a result built from its kind, sharing a canonical instance when there are no comments.
+	 */
+	private static StatusResult valueOf(DescriptionKind kind, String comments, boolean completedSchedule, boolean readySchedule, boolean futureSchedule, Calendar date) {
+		byte flags = getFlags(completedSchedule, readySchedule, futureSchedule);
+		if(comments != null) return new StatusResult(kind, getStyle(kind), null, comments, flags, date);
+		Long key = ((long)toEpochDay(date) << 32) | (flags << 8) | kind.ordinal();
+		StatusResult result = canonical.get(key);
+		if(result == null) {
+			result = new StatusResult(kind, getStyle(kind), null, null, flags, date);
+			// Discard all once full, which also drops results of past days
+			if(canonical.size() >= MAX_CANONICAL) canonical.clear();
+			StatusResult existing = canonical.putIfAbsent(key, result);
+			if(existing != null) result = existing;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the result for a task that has not been started.
+	 */
+	static StatusResult newTask(boolean allDoBeforesCompleted) {
+		return allDoBeforesCompleted ? NEW : NEW_WAITING_DO_BEFORE;
+	}
+
+	/**
+	 * Gets the result for a task that is due today.
+	 */
+	static StatusResult dueToday(String comments, boolean allDoBeforesCompleted, Calendar date) {
+		return valueOf(
+			allDoBeforesCompleted ? DescriptionKind.DUE_TODAY : DescriptionKind.DUE_TODAY_WAITING_DO_BEFORE,
+			comments,
+			false,
+			allDoBeforesCompleted,
+			false,
+			date
+		);
+	}
+
+	/**
+	 * Gets the result for a task that was due before today.
+	 */
+	static StatusResult late(String comments, boolean allDoBeforesCompleted, Calendar date) {
+		return valueOf(
+			allDoBeforesCompleted ? DescriptionKind.LATE : DescriptionKind.LATE_WAITING_DO_BEFORE,
+			comments,
+			false,
+			allDoBeforesCompleted,
+			false,
+			date
+		);
+	}
+
+	/**
+	 * Gets the result for a task that is not due until after today.
+	 */
+	static StatusResult waitingUntil(boolean completedSchedule, Calendar date) {
+		return valueOf(
+			DescriptionKind.WAITING_UNTIL,
+			null,
+			completedSchedule,
+			false,
+			true,
+			date
+		);
+	}
+
+	private static int toEpochDay(Calendar date) {
+		return date == null ? NO_DATE : (int)ScheduleAdvance.toEpochDay(date);
+	}
+
+	private final byte style;
+	private final byte flags;
+	private final byte descriptionKind;
 	private final String comments;
-	private final boolean completedSchedule;
-	private final boolean readySchedule;
-	private final boolean futureSchedule;
 	private final UnmodifiableCalendar date;
 
+	/**
+	 * Built when first needed, unless a literal description.
+	 */
+	private volatile String description;
+
+	private StatusResult(
+		DescriptionKind descriptionKind,
+		Style style,
+		String description,
+		String comments,
+		byte flags,
+		Calendar date
+	) {
+		this.style = (byte)style.ordinal();
+		this.flags = flags;
+		this.descriptionKind = (byte)descriptionKind.ordinal();
+		this.comments = comments;
+		// Shares the date when already unmodifiable, such as the "on" date of the task
+		this.date = UnmodifiableCalendar.wrap(date);
+		this.description = description;
+	}
+
 	StatusResult(
 		Style style,
 		String description,
@@ -95,15 +261,14 @@ public class StatusResult {
 		boolean futureSchedule,
 		Calendar date
 	) {
-		if(completedSchedule && readySchedule) throw new AssertionError("A task may not be both completed and ready");
-		if(readySchedule && futureSchedule) throw new AssertionError("A task may not be both ready and future");
-		this.style = style;
-		this.description = description;
-		this.comments = comments;
-		this.completedSchedule = completedSchedule;
-		this.readySchedule = readySchedule;
-		this.futureSchedule = futureSchedule;
-		this.date = UnmodifiableCalendar.wrap(date);
+		this(
+			DescriptionKind.LITERAL,
+			style,
+			description,
+			comments,
+			getFlags(completedSchedule, readySchedule, futureSchedule),
+			date
+		);
 	}
 
 	StatusResult(
@@ -113,26 +278,41 @@ public class StatusResult {
 		boolean futureSchedule,
 		Calendar date
 	) {
-		if(allDoBeforesCompleted) {
-			this.style = Style.getStyle(taskStatus);
-			this.description = taskStatus.getLabel();
-		} else {
-			this.style = Style.getStyleDoBefore(taskStatus);
-			this.description = taskStatus.getLabelDoBefore();
-		}
-		this.comments = comments;
-		this.completedSchedule = taskStatus.isCompletedSchedule();
-		this.readySchedule = allDoBeforesCompleted && !taskStatus.isCompletedSchedule();
-		this.futureSchedule = futureSchedule;
-		this.date = UnmodifiableCalendar.wrap(date);
+		this(
+			DescriptionKind.LITERAL,
+			allDoBeforesCompleted ? Style.getStyle(taskStatus) : Style.getStyleDoBefore(taskStatus),
+			allDoBeforesCompleted ? taskStatus.getLabel() : taskStatus.getLabelDoBefore(),
+			comments,
+			toFlags(
+				taskStatus.isCompletedSchedule(),
+				allDoBeforesCompleted && !taskStatus.isCompletedSchedule(),
+				futureSchedule
+			),
+			date
+		);
 	}
 
 	public Style getStyle() {
-		return style;
+		return STYLES[style];
 	}
 
 	public String getDescription() {
-		return description;
+		String d = description;
+		if(d == null) {
+			DescriptionKind kind = DESCRIPTION_KINDS[descriptionKind];
+			switch(kind) {
+				case NEW                         : d = "New"; break;
+				case NEW_WAITING_DO_BEFORE       : d = "New waiting for \"Do Before\""; break;
+				case DUE_TODAY                   : d = "Due Today"; break;
+				case DUE_TODAY_WAITING_DO_BEFORE : d = "Due Today waiting for \"Do Before\""; break;
+				case LATE                        : d = "Late " + CalendarUtils.formatDate(date); break;
+				case LATE_WAITING_DO_BEFORE      : d = "Late " + CalendarUtils.formatDate(date) + " waiting for \"Do Before\""; break;
+				case WAITING_UNTIL               : d = "Waiting until " + CalendarUtils.formatDate(date); break;
+				default                          : throw new AssertionError("Unexpected value for kind: " + kind);
+			}
+			description = d;
+		}
+		return d;
 	}
 
 	public String getComments() {
@@ -140,15 +320,15 @@ public class StatusResult {
 	}
 
 	public boolean isCompletedSchedule() {
-		return completedSchedule;
+		return (flags & COMPLETED_SCHEDULE) != 0;
 	}
 
 	public boolean isReadySchedule() {
-		return readySchedule;
+		return (flags & READY_SCHEDULE) != 0;
 	}
 
 	public boolean isFutureSchedule() {
-		return futureSchedule;
+		return (flags & FUTURE_SCHEDULE) != 0;
 	}
 
 	@SuppressWarnings("ReturnOfDateField") // UnmodifiableCalendar
@@ -0,0 +1,134 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * The threads each thread is waiting on while computing statuses, used to
+ * detect when waiting for a status would deadlock.
+ * <p>
+ * A thread waits on the owner of a status computation in progress, and on the
+ * threads running the subtasks it has handed to an executor.  The check for a
+ * cycle and the registration of a wait are done under a single lock, so two
+ * threads cannot both begin waiting on each other.
+ * </p>
+ */
+final class StatusWaits {
+
+	private static final Object lock = new Object();
+
+	/**
+	 * The owner of the status computation each thread is waiting for.
+	 */
+	private static final Map<Thread, Thread> waitingFor = new HashMap<>();
+
+	/**
+	 * The threads running the subtasks of each thread.
+	 */
+	private static final Map<Thread, List<Thread>> subtasks = new HashMap<>();
+
+	/**
+	 * Registers that the current thread is waiting for a status computed by the given thread.
+	 * Must be followed by {@link #endWait()} when {@code true} is returned.
+	 *
+	 * @return  {@code false} when waiting would deadlock, in which case nothing is registered
+	 */
+	static boolean beginWait(Thread owner) {
+		Thread currentThread = Thread.currentThread();
+		synchronized(lock) {
+			if(isWaitingOn(owner, currentThread)) return false;
+			waitingFor.put(currentThread, owner);
+			return true;
+		}
+	}
+
+	static void endWait() {
+		Thread currentThread = Thread.currentThread();
+		synchronized(lock) {
+			waitingFor.remove(currentThread);
+		}
+	}
+
+	/**
+	 * Checks if a thread is, directly or transitively, waiting on the given thread,
+	 * including itself.
+	 */
+	private static boolean isWaitingOn(Thread from, Thread target) {
+		assert Thread.holdsLock(lock);
+		Deque<Thread> pending = new ArrayDeque<>();
+		Set<Thread> visited = new HashSet<>();
+		pending.add(from);
+		while(!pending.isEmpty()) {
+			Thread thread = pending.remove();
+			if(thread == target) return true;
+			if(visited.add(thread)) {
+				Thread owner = waitingFor.get(thread);
+				if(owner != null) pending.add(owner);
+				List<Thread> workers = subtasks.get(thread);
+				if(workers != null) pending.addAll(workers);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Wraps a subtask handed to an executor by the current thread.  While the
+	 * subtask runs, the current thread is considered to be waiting on the
+	 * thread running it, since it does not complete its own statuses until all
+	 * of its subtasks are done.
+	 */
+	static <V> Callable<V> subtask(Callable<V> callable) {
+		final Thread parent = Thread.currentThread();
+		return () -> {
+			Thread worker = Thread.currentThread();
+			if(worker == parent) return callable.call();
+			synchronized(lock) {
+				subtasks.computeIfAbsent(parent, k -> new ArrayList<>()).add(worker);
+			}
+			try {
+				return callable.call();
+			} finally {
+				synchronized(lock) {
+					List<Thread> workers = subtasks.get(parent);
+					workers.remove(worker);
+					if(workers.isEmpty()) subtasks.remove(parent);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Make no instances.
+	 */
+	private StatusWaits() {
+	}
+}
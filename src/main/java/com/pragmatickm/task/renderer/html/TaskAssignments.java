@@ -0,0 +1,133 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.pragmatickm.task.model.Task;
+import com.pragmatickm.task.model.TaskAssignment;
+import com.pragmatickm.task.model.User;
+import com.semanticcms.core.controller.Cache;
+import java.util.Map;
+
+/**
+ * The users a task is assigned to, as a bitmask over {@link User#ordinal()},
+ * along with the "after" offset of each assignment.
+ * Built once per task per request.
+ */
+final class TaskAssignments {
+
+	private static final int NUM_USERS = User.values().length;
+
+	static {
+		// The mask of all bits is reserved to mean no user filter
+		if(NUM_USERS >= Long.SIZE) throw new AssertionError("Too many users for bitmask: " + NUM_USERS);
+	}
+
+	private static final TaskAssignment.After[] NO_AFTERS = new TaskAssignment.After[0];
+
+	private static final TaskAssignments UNASSIGNED = new TaskAssignments(0, NO_AFTERS);
+
+	private static final String CACHE_KEY = TaskAssignments.class.getName();
+
+	/**
+	 * Gets the bit of a user.
+	 */
+	static long getMask(User user) {
+		return 1L << user.ordinal();
+	}
+
+	/**
+	 * Gets the assignments of a task, caching per request.
+	 */
+	static TaskAssignments getAssignments(Cache cache, Task task) {
+		@SuppressWarnings("unchecked")
+		Map<Task, TaskAssignments> assignmentsCache = cache.getAttribute(
+			CACHE_KEY,
+			Map.class,
+			() -> cache.newMap()
+		);
+		TaskAssignments assignments = assignmentsCache.get(task);
+		if(assignments == null) {
+			assignments = newAssignments(task);
+			assignmentsCache.put(task, assignments);
+		}
+		return assignments;
+	}
+
+	private static TaskAssignments newAssignments(Task task) {
+		long users = 0;
+		TaskAssignment.After[] afters = NO_AFTERS;
+		for(TaskAssignment assignedTo : task.getAssignedTo()) {
+			int ordinal = assignedTo.getUser().ordinal();
+			long bit = 1L << ordinal;
+			// Only the first assignment per user, consistent with Task.getAssignedTo(User)
+			if((users & bit) == 0) {
+				users |= bit;
+				TaskAssignment.After after = assignedTo.getAfter();
+				if(after.getCount() > 0) {
+					if(afters == NO_AFTERS) afters = new TaskAssignment.After[NUM_USERS];
+					afters[ordinal] = after;
+				}
+			}
+		}
+		return users == 0 ? UNASSIGNED : new TaskAssignments(users, afters);
+	}
+
+	private final long users;
+
+	/**
+	 * The non-zero "after" offsets by user ordinal, empty when there are none.
+	 */
+	private final TaskAssignment.After[] afters;
+
+	private TaskAssignments(long users, TaskAssignment.After[] afters) {
+		this.users = users;
+		this.afters = afters;
+	}
+
+	/**
+	 * Gets the bitmask of the users the task is assigned to.
+	 */
+	long getUsers() {
+		return users;
+	}
+
+	boolean isAssignedTo(User user) {
+		return (users & getMask(user)) != 0;
+	}
+
+	/**
+	 * Checks if the task is assigned to any of the users in the given bitmask.
+	 */
+	boolean isAssignedToAny(long userMask) {
+		return (users & userMask) != 0;
+	}
+
+	/**
+	 * Gets the "after" offset of the assignment to the user of the given ordinal.
+	 *
+	 * @return  The offset or {@code null} when not assigned or the offset is zero
+	 */
+	TaskAssignment.After getAfter(int userOrdinal) {
+		return afters.length == 0 ? null : afters[userOrdinal];
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.model.PageRef;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events of task rendering.
+ * <p>
+ * Each event is created and begun unconditionally, but its fields are only
+ * filled when the event will be committed, so the cost is negligible when the
+ * event is not enabled.
+ * </p>
+ */
+final class TaskEvents {
+
+	private static final String NAME_PREFIX = "com.pragmatickm.task.renderer.html.";
+
+	private static final String CATEGORY_1 = "PragmaticKM";
+	private static final String CATEGORY_2 = "Task";
+
+	private static String toString(Task task) {
+		return task.getPage().getPageRef() + "#" + task.getId();
+	}
+
+	/**
+	 * Gets the branch of the status computation used for a task.
+	 */
+	private static String getBranch(Task task) {
+		if(task.getRecurring() == null) {
+			return task.getOn() == null ? "Non-scheduled" : "Scheduled";
+		} else {
+			return task.getRelative() ? "Relative recurring" : "Recurring";
+		}
+	}
+
+	@Name(NAME_PREFIX + "Status")
+	@Label("Task Status")
+	@Description("Gets the status of a task that is not already known to the current request")
+	@Category({CATEGORY_1, CATEGORY_2})
+	static class Status extends Event {
+
+		@Label("Task")
+		String task;
+
+		@Label("Branch")
+		String branch;
+
+		@Label("Cache Hit")
+		@Description("The status was found in the status cache shared between requests")
+		boolean cacheHit;
+
+		void finish(Task task, boolean cacheHit) {
+			end();
+			if(shouldCommit()) {
+				this.task = TaskEvents.toString(task);
+				this.branch = getBranch(task);
+				this.cacheHit = cacheHit;
+				commit();
+			}
+		}
+	}
+
+	@Name(NAME_PREFIX + "DoBeforeCapture")
+	@Label("Do Before Page Capture")
+	@Description("Captures a page containing a \"Do Before\" task")
+	@Category({CATEGORY_1, CATEGORY_2})
+	static class DoBeforeCapture extends Event {
+
+		@Label("Task")
+		@Description("The task that must be done after the tasks on the page")
+		String task;
+
+		@Label("Page")
+		String page;
+
+		void finish(Task task, PageRef page) {
+			end();
+			if(shouldCommit()) {
+				this.task = TaskEvents.toString(task);
+				this.page = page.toString();
+				commit();
+			}
+		}
+	}
+
+	@Name(NAME_PREFIX + "Traversal")
+	@Label("Task Page Traversal")
+	@Description("Traverses a tree of pages to find tasks")
+	@Category({CATEGORY_1, CATEGORY_2})
+	static class Traversal extends Event {
+
+		@Label("Operation")
+		String operation;
+
+		@Label("Root Page")
+		String rootPage;
+
+		@Label("Pages Visited")
+		int pagesVisited;
+
+		void finish(String operation, PageRef rootPage, int pagesVisited) {
+			end();
+			if(shouldCommit()) {
+				this.operation = operation;
+				this.rootPage = rootPage.toString();
+				this.pagesVisited = pagesVisited;
+				commit();
+			}
+		}
+	}
+
+	@Name(NAME_PREFIX + "WriteBeforeBody")
+	@Label("Task Write Before Body")
+	@Description("Writes a task, along with its \"Do Before\" and \"Do After\" tasks")
+	@Category({CATEGORY_1, CATEGORY_2})
+	static class WriteBeforeBody extends Event {
+
+		@Label("Task")
+		String task;
+
+		@Label("Do Befores")
+		int doBefores;
+
+		@Label("Do Afters")
+		int doAfters;
+
+		void finish(Task task, int doBefores, int doAfters) {
+			end();
+			if(shouldCommit()) {
+				this.task = TaskEvents.toString(task);
+				this.doBefores = doBefores;
+				this.doAfters = doAfters;
+				commit();
+			}
+		}
+	}
+
+	/**
+	 * Make no instances.
+	 */
+	private TaskEvents() {
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.collections.AoCollections;
+import com.aoapps.hodgepodge.schedule.Recurring;
+import com.aoapps.lang.util.UnmodifiableCalendar;
+import com.pragmatickm.task.model.Task;
+import com.pragmatickm.task.model.TaskLog;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The scheduled tasks that are due on each day of a window, starting from the
+ * day of an {@link AsOf}.
+ * <p>
+ * Occurrences already completed in the task log are not included.  Scheduled
+ * tasks that are late as of the first day are listed once in
+ * {@link #getOverdue()} instead of on any day.
+ * </p>
+ * <p>
+ * The occurrences of a relative recurring task depend on when each is
+ * completed, so only its next occurrence is known.  The occurrences after it
+ * are projected by assuming each is completed on its scheduled day, and are
+ * marked {@linkplain Occurrence#isProjected() projected}.
+ * </p>
+ *
+ * @see  TaskUtil#getForecast(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.renderer.html.AsOf, int)
+ */
+public final class TaskForecast {
+
+	/**
+	 * A single scheduled occurrence of a task.
+	 */
+	public static final class Occurrence {
+
+		private final Task task;
+		private final UnmodifiableCalendar scheduledOn;
+		private final boolean allDoBeforesCompleted;
+		private final boolean projected;
+
+		private Occurrence(Task task, UnmodifiableCalendar scheduledOn, boolean allDoBeforesCompleted, boolean projected) {
+			this.task = task;
+			this.scheduledOn = scheduledOn;
+			this.allDoBeforesCompleted = allDoBeforesCompleted;
+			this.projected = projected;
+		}
+
+		public Task getTask() {
+			return task;
+		}
+
+		@SuppressWarnings("ReturnOfDateField") // UnmodifiableCalendar
+		public UnmodifiableCalendar getScheduledOn() {
+			return scheduledOn;
+		}
+
+		/**
+		 * Checks if all "Do Before" tasks were completed as of the first day of the forecast.
+		 */
+		public boolean isAllDoBeforesCompleted() {
+			return allDoBeforesCompleted;
+		}
+
+		/**
+		 * Checks if this occurrence of a relative recurring task assumes the
+		 * previous occurrence is completed on its scheduled day.
+		 */
+		public boolean isProjected() {
+			return projected;
+		}
+
+		@Override
+		public String toString() {
+			return task + " @ " + scheduledOn;
+		}
+	}
+
+	/**
+	 * Builds a forecast, one task at a time.
+	 */
+	static final class Builder {
+
+		private final AsOf asOf;
+		private final int days;
+		private final long firstDay;
+		private final long endDay;
+		private final List<Occurrence> overdue = new ArrayList<>();
+		private final List<Occurrence>[] occurrences;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Builder(AsOf asOf, int days) {
+			if(days < 0) throw new IllegalArgumentException("days < 0: " + days);
+			this.asOf = asOf;
+			this.days = days;
+			this.firstDay = ScheduleAdvance.toEpochDay(asOf.getToday());
+			this.endDay = firstDay + days;
+			this.occurrences = new List[days];
+		}
+
+		private void add(long day, Occurrence occurrence) {
+			assert day >= firstDay && day < endDay;
+			int index = (int)(day - firstDay);
+			List<Occurrence> list = occurrences[index];
+			if(list == null) occurrences[index] = list = new ArrayList<>();
+			list.add(occurrence);
+		}
+
+		/**
+		 * Adds the occurrences of a task.
+		 *
+		 * @param  status  The status of the task as of the first day
+		 * @param  allDoBeforesCompleted  Whether all "Do Before" tasks were completed as of the first day
+		 */
+		void add(Task task, StatusResult status, boolean allDoBeforesCompleted) throws IOException {
+			Recurring recurring = task.getRecurring();
+			if(recurring == null) {
+				if(task.getOn() != null && !status.isCompletedSchedule()) {
+					addOnce(task, status.getDate(), allDoBeforesCompleted);
+				}
+			} else if(task.getRelative()) {
+				addRelative(task, recurring, status.getDate(), allDoBeforesCompleted);
+			} else {
+				addRecurring(task, recurring, status.getDate(), allDoBeforesCompleted);
+			}
+		}
+
+		private void addOnce(Task task, UnmodifiableCalendar on, boolean allDoBeforesCompleted) {
+			long day = ScheduleAdvance.toEpochDay(on);
+			if(day < firstDay) {
+				overdue.add(new Occurrence(task, on, allDoBeforesCompleted, false));
+			} else if(day < endDay) {
+				add(day, new Occurrence(task, on, allDoBeforesCompleted, false));
+			}
+		}
+
+		/**
+		 * Adds the occurrences of a relative recurring task, projecting each from
+		 * the scheduled day of the one before it.
+		 */
+		private void addRelative(Task task, Recurring recurring, UnmodifiableCalendar firstIncomplete, boolean allDoBeforesCompleted) {
+			Calendar next;
+			boolean projected;
+			if(ScheduleAdvance.toEpochDay(firstIncomplete) < firstDay) {
+				overdue.add(new Occurrence(task, firstIncomplete, allDoBeforesCompleted, false));
+				// Assume completed on the first day
+				next = ScheduleAdvance.getFirstAfter(recurring, asOf.getToday(), asOf.getTodayMillis());
+				projected = true;
+			} else {
+				next = firstIncomplete;
+				projected = false;
+			}
+			while(true) {
+				long day = ScheduleAdvance.toEpochDay(next);
+				if(day >= endDay) break;
+				UnmodifiableCalendar scheduledOn = UnmodifiableCalendar.wrap(next);
+				add(day, new Occurrence(task, scheduledOn, allDoBeforesCompleted, projected));
+				next = ScheduleAdvance.getFirstAfter(recurring, scheduledOn, scheduledOn.getTimeInMillis());
+				projected = true;
+			}
+		}
+
+		/**
+		 * Adds the occurrences of a non-relative recurring task, skipping those
+		 * already completed in the task log.
+		 */
+		private void addRecurring(Task task, Recurring recurring, UnmodifiableCalendar firstIncomplete, boolean allDoBeforesCompleted) throws IOException {
+			long firstIncompleteDay = ScheduleAdvance.toEpochDay(firstIncomplete);
+			Calendar first;
+			if(firstIncompleteDay < firstDay) {
+				overdue.add(new Occurrence(task, firstIncomplete, allDoBeforesCompleted, false));
+				first = ScheduleAdvance.getFirstAfter(recurring, firstIncomplete, asOf.getTodayMillis() - 1);
+			} else {
+				first = firstIncomplete;
+			}
+			long day = ScheduleAdvance.toEpochDay(first);
+			if(day >= endDay) return;
+			// Completions logged ahead of time, found in a single pass of the task log
+			boolean[] completed = getCompleted(task.getTaskLog());
+			if(!completed[(int)(day - firstDay)]) {
+				add(day, new Occurrence(task, UnmodifiableCalendar.wrap(first), allDoBeforesCompleted, false));
+			}
+			long lastDay = day;
+			Iterator<Calendar> iter = recurring.getScheduleIterator(first);
+			while(iter.hasNext()) {
+				Calendar next = iter.next();
+				day = ScheduleAdvance.toEpochDay(next);
+				if(day >= endDay) break;
+				if(day > lastDay) {
+					if(!completed[(int)(day - firstDay)]) {
+						add(day, new Occurrence(task, UnmodifiableCalendar.wrap(next), allDoBeforesCompleted, false));
+					}
+					lastDay = day;
+				}
+			}
+		}
+
+		/**
+		 * Gets which days of the window have their scheduled occurrence completed,
+		 * where the most recent entry for each scheduled day is used.
+		 */
+		private boolean[] getCompleted(TaskLog taskLog) throws IOException {
+			boolean[] completed = new boolean[days];
+			for(TaskLog.Entry entry : taskLog.getEntries()) {
+				boolean completedSchedule = entry.getStatus().isCompletedSchedule();
+				for(Calendar scheduledOn : entry.getScheduledOns()) {
+					long day = ScheduleAdvance.toEpochDay(scheduledOn);
+					if(day >= firstDay && day < endDay) completed[(int)(day - firstDay)] = completedSchedule;
+				}
+			}
+			return completed;
+		}
+
+		TaskForecast build() {
+			List<List<Occurrence>> byDay = new ArrayList<>(days);
+			for(List<Occurrence> list : occurrences) {
+				byDay.add(list == null ? Collections.<Occurrence>emptyList() : AoCollections.optimalUnmodifiableList(list));
+			}
+			return new TaskForecast(asOf, AoCollections.optimalUnmodifiableList(overdue), byDay);
+		}
+	}
+
+	private final AsOf asOf;
+	private final List<Occurrence> overdue;
+	private final List<List<Occurrence>> occurrences;
+
+	private TaskForecast(AsOf asOf, List<Occurrence> overdue, List<List<Occurrence>> occurrences) {
+		this.asOf = asOf;
+		this.overdue = overdue;
+		this.occurrences = occurrences;
+	}
+
+	/**
+	 * Gets the day and instant the forecast starts from.
+	 */
+	public AsOf getAsOf() {
+		return asOf;
+	}
+
+	/**
+	 * Gets the number of days in the forecast.
+	 */
+	public int getDays() {
+		return occurrences.size();
+	}
+
+	/**
+	 * Gets the date of a day in the forecast.
+	 *
+	 * @param  day  The day, where {@code 0} is the first day
+	 */
+	public UnmodifiableCalendar getDate(int day) {
+		if(day < 0 || day >= occurrences.size()) throw new IndexOutOfBoundsException("day: " + day);
+		Calendar date = UnmodifiableCalendar.unwrapClone(asOf.getToday());
+		date.add(Calendar.DAY_OF_MONTH, day);
+		return UnmodifiableCalendar.wrap(date);
+	}
+
+	/**
+	 * Gets the occurrences due on a day of the forecast, in depth-first page order.
+	 *
+	 * @param  day  The day, where {@code 0} is the first day
+	 */
+	public List<Occurrence> getOccurrences(int day) {
+		return occurrences.get(day);
+	}
+
+	/**
+	 * Gets the first incomplete occurrence of each task that was due before the
+	 * first day, in depth-first page order.
+	 */
+	public List<Occurrence> getOverdue() {
+		return overdue;
+	}
+}
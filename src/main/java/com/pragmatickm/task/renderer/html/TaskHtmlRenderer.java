@@ -33,7 +33,6 @@ import com.aoapps.lang.exception.WrappedException;
 import com.aoapps.lang.util.CalendarUtils;
 import com.aoapps.lang.validation.ValidationException;
 import com.aoapps.net.Path;
-import com.aoapps.net.URIEncoder;
 import static com.aoapps.taglib.AttributeUtils.resolveValue;
 import com.pragmatickm.task.model.Priority;
 import com.pragmatickm.task.model.Task;
@@ -41,9 +40,8 @@ import com.pragmatickm.task.model.TaskException;
 import com.pragmatickm.task.model.TaskPriority;
 import com.semanticcms.core.controller.Cache;
 import com.semanticcms.core.controller.CacheFilter;
-import com.semanticcms.core.controller.CapturePage;
-import com.semanticcms.core.model.BookRef;
-import com.semanticcms.core.model.Element;
+import com.semanticcms.core.controller.ConcurrencyCoordinator;
+import com.semanticcms.core.controller.SemanticCMS;
 import com.semanticcms.core.model.ElementContext;
 import com.semanticcms.core.model.ElementRef;
 import com.semanticcms.core.model.NodeBodyWriter;
@@ -52,14 +50,16 @@ import com.semanticcms.core.model.PageRef;
 import com.semanticcms.core.model.ResourceRef;
 import com.semanticcms.core.pages.CaptureLevel;
 import com.semanticcms.core.pages.local.CurrentPage;
-import com.semanticcms.core.renderer.html.HtmlRenderer;
 import com.semanticcms.core.renderer.html.PageIndex;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import javax.el.ELContext;
 import javax.el.ValueExpression;
 import javax.servlet.ServletContext;
@@ -116,6 +116,83 @@ final public class TaskHtmlRenderer {
 		}
 	}
 
+	/**
+	 * Captures the doBefores of a task, in the iteration order of {@link Task#getDoBefores()}.
+	 * Each page is captured only once, even when it contains several of the doBefores.
+	 * When concurrent subrequests are enabled and the doBefores span more than one page,
+	 * the pages are captured concurrently.
+	 */
+	private static List<Task> getDoBefores(
+		final ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Task task,
+		final Cache cache
+	) throws TaskException, ServletException, IOException {
+		Set<ElementRef> doBeforeRefs = task.getDoBefores();
+		int size = doBeforeRefs.size();
+		if(size == 0) return Collections.emptyList();
+		// Find the distinct pages
+		Set<PageRef> pageRefs = AoCollections.newLinkedHashSet(size);
+		for(ElementRef doBefore : doBeforeRefs) {
+			pageRefs.add(doBefore.getPageRef());
+		}
+		int numPages = pageRefs.size();
+		Map<PageRef, Page> capturedPages = AoCollections.newHashMap(numPages);
+		if(
+			numPages > 1
+			&& ConcurrencyCoordinator.useConcurrentSubrequests(request)
+		) {
+			// Concurrent implementation
+			List<Callable<Page>> concurrentTasks = new ArrayList<>(numPages);
+			TaskUtil.Subrequests subrequests = new TaskUtil.Subrequests(request, response);
+			for(final PageRef pageRef : pageRefs) {
+				concurrentTasks.add(subrequests.wrap((subrequest, subresponse) ->
+					TaskUtil.captureDoBeforePage(
+						servletContext,
+						subrequest,
+						subresponse,
+						task,
+						pageRef,
+						cache
+					)
+				));
+			}
+			List<Page> concurrentResults;
+			try {
+				concurrentResults = SemanticCMS.getInstance(servletContext).getExecutors().getPerProcessor().callAll(concurrentTasks);
+			} catch(InterruptedException e) {
+				throw new ServletException(e);
+			} catch(ExecutionException e) {
+				throw TaskUtil.wrapExecutionException(e);
+			}
+			int i = 0;
+			for(PageRef pageRef : pageRefs) {
+				capturedPages.put(pageRef, concurrentResults.get(i++));
+			}
+		} else {
+			// Sequential implementation
+			for(PageRef pageRef : pageRefs) {
+				capturedPages.put(
+					pageRef,
+					TaskUtil.captureDoBeforePage(
+						servletContext,
+						request,
+						response,
+						task,
+						pageRef,
+						cache
+					)
+				);
+			}
+		}
+		List<Task> doBefores = new ArrayList<>(size);
+		for(ElementRef doBefore : doBeforeRefs) {
+			doBefores.add(TaskUtil.getDoBefore(capturedPages.get(doBefore.getPageRef()), doBefore));
+		}
+		return doBefores;
+	}
+
 	/**
 	 * @return  When captureLevel == BODY, the tbody, which may be used to write additional content and must be passed onto
 	 *          {@link #writeAfterBody(com.pragmatickm.task.model.Task, com.aoapps.html.any.AnyTBODY_c, com.semanticcms.core.model.ElementContext)}.
@@ -150,29 +227,11 @@ final public class TaskHtmlRenderer {
 		}
 
 		if(captureLevel == CaptureLevel.BODY) {
+			TaskEvents.WriteBeforeBody event = new TaskEvents.WriteBeforeBody();
+			event.begin();
 			Cache cache = CacheFilter.getCache(request);
 			// Capture the doBefores
-			List<Task> doBefores;
-			{
-				// TODO: Concurrent getDoBefores?
-				Set<ElementRef> doBeforeRefs = task.getDoBefores();
-				int size = doBeforeRefs.size();
-				doBefores = new ArrayList<>(size);
-				// TODO: Concurrent capture here?
-				for(ElementRef doBefore : doBeforeRefs) {
-					Element elem = CapturePage.capturePage(
-						servletContext,
-						request,
-						response,
-						doBefore.getPageRef(),
-						CaptureLevel.META
-					).getElementsById().get(doBefore.getId());
-					if(elem == null) throw new TaskException("Element not found: " + doBefore);
-					if(!(elem instanceof Task)) throw new TaskException("Element is not a Task: " + elem.getClass().getName());
-					if(elem.getPage().getGeneratedIds().contains(elem.getId())) throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + elem);
-					doBefores.add((Task)elem);
-				}
-			}
+			List<Task> doBefores = getDoBefores(servletContext, request, response, task, cache);
 			// Find the doAfters
 			List<Task> doAfters = TaskUtil.getDoAfters(servletContext, request, response, task);
 			// Lookup all the statuses at once
@@ -208,7 +267,7 @@ final public class TaskHtmlRenderer {
 					)
 				)
 				.tbody_c();
-					final long now = System.currentTimeMillis();
+					final long now = TaskUtil.getAsOf(cache).getNow();
 					writeTasks(servletContext, request, response, tbody, cache, currentPage, now, doBefores, statuses, "Do Before:");
 					StatusResult status = statuses.get(task);
 					tbody.tr__any(tr -> tr
@@ -240,6 +299,7 @@ final public class TaskHtmlRenderer {
 					writeRow("Pay:", task.getPay(), tbody);
 					writeRow("Cost:", task.getCost(), tbody);
 					writeTasks(servletContext, request, response, tbody, cache, currentPage, now, doAfters, statuses, "Do After:");
+			event.finish(task, doBefores.size(), doAfters.size());
 			return tbody;
 		} else {
 			return null;
@@ -326,11 +386,11 @@ final public class TaskHtmlRenderer {
 	) throws ServletException, IOException, TaskException {
 		int size = tasks.size();
 		if(size > 0) {
-			HtmlRenderer htmlRenderer = HtmlRenderer.getInstance(servletContext);
+			TaskLinkWriter linkWriter = TaskLinkWriter.getInstance(servletContext, request, response);
+			PageIndex pageIndex = PageIndex.getCurrentPageIndex(request);
 			for(int i_ = 0; i_ < size; i_++) {
 				int i = i_;
 				Task task = tasks.get(i);
-				final Page taskPage = task.getPage();
 				StatusResult status = statuses.get(task);
 				Priority priority = getPriorityForStatus(now, task, status);
 				content.tr__any(tr -> {
@@ -340,36 +400,10 @@ final public class TaskHtmlRenderer {
 					tr.td().clazz(status.getStyle().getCssClass()).__(status.getDescription())
 					.td().clazz(priority.getCssClass()).__(priority)
 					.td__any(td -> {
-						PageIndex pageIndex = PageIndex.getCurrentPageIndex(request);
-						final PageRef taskPageRef = taskPage.getPageRef();
-						Integer index = pageIndex==null ? null : pageIndex.getPageIndex(taskPageRef);
-						StringBuilder href = new StringBuilder();
-						if(index != null) {
-							// view=all mode
-							href.append('#');
-							URIEncoder.encodeURIComponent(
-								PageIndex.getRefId(
-									index,
-									task.getId()
-								),
-								href
-							);
-						} else if(taskPage.equals(currentPage)) {
-							// Task on this page, generate anchor-only link
-							href.append('#');
-							URIEncoder.encodeURIComponent(task.getId(), href);
-						} else {
-							// Task on other page, generate full link
-							BookRef taskBookRef = taskPageRef.getBookRef();
-							URIEncoder.encodeURI(request.getContextPath(), href);
-							URIEncoder.encodeURI(taskBookRef.getPrefix(), href);
-							URIEncoder.encodeURI(taskPageRef.getPath().toString(), href);
-							href.append('#');
-							URIEncoder.encodeURIComponent(task.getId(), href);
-						}
+						Integer index = pageIndex==null ? null : pageIndex.getPageIndex(task.getPage().getPageRef());
 						td.a()
-							.clazz(htmlRenderer.getLinkCssClass(task))
-							.href(response.encodeURL(href.toString()))
+							.clazz(linkWriter.getLinkCssClass(task))
+							.href(linkWriter.getHref(index, currentPage, task))
 						.__(a -> {
 							a.text(task);
 							if(index != null) {
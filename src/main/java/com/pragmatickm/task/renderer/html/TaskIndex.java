@@ -0,0 +1,157 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.collections.AoCollections;
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.controller.Cache;
+import com.semanticcms.core.controller.CacheFilter;
+import com.semanticcms.core.controller.CapturePage;
+import com.semanticcms.core.controller.SemanticCMS;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.ElementRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.pages.CaptureLevel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An index of all tasks in the page tree, along with the inverted "doBefore"
+ * edges used to find the tasks that must be done after any given task.
+ * <p>
+ * The index is request-scoped.  It is built from a single traversal of the page
+ * tree the first time it is needed in a request, after which all lookups are
+ * hash lookups.  It is not shared between requests, since telling whether any
+ * page has changed would take the same traversal.
+ * </p>
+ */
+final class TaskIndex {
+
+	private static final String GET_TASK_INDEX_CACHE_KEY = TaskIndex.class.getName() + ".getTaskIndex";
+
+	/**
+	 * Gets the task index for the content root of the root book.
+	 * The page tree is traversed once per request.
+	 */
+	static TaskIndex getTaskIndex(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response
+	) throws ServletException, IOException {
+		final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
+		PageRef contentRoot = semanticCMS.getRootBook().getContentRoot();
+		Cache cache = CacheFilter.getCache(request);
+		@SuppressWarnings("unchecked")
+		Map<PageRef, TaskIndex> taskIndexCache = cache.getAttribute(
+			GET_TASK_INDEX_CACHE_KEY,
+			Map.class,
+			() -> cache.newMap()
+		);
+		TaskIndex taskIndex = taskIndexCache.get(contentRoot);
+		if(taskIndex == null) {
+			// Find all pages, in depth-first order
+			final List<Page> pages = new ArrayList<>();
+			TaskEvents.Traversal event = new TaskEvents.Traversal();
+			event.begin();
+			TaskUtil.prefetchPages(servletContext, request, response, contentRoot, null);
+			CapturePage.traversePagesDepthFirst(
+				servletContext,
+				request,
+				response,
+				contentRoot,
+				CaptureLevel.META,
+				(Page page, int depth) -> {
+					pages.add(page);
+					return null;
+				},
+				(Page page) -> page.getChildRefs(),
+				// Child in accessible book
+				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
+				null
+			);
+			event.finish("getTaskIndex", contentRoot, pages.size());
+			TaskMetrics.getInstance(servletContext).doAftersPagesVisited.record(pages.size());
+			taskIndex = new TaskIndex(pages);
+			taskIndexCache.put(contentRoot, taskIndex);
+		}
+		return taskIndex;
+	}
+
+	private final List<Task> tasks;
+	private final Map<ElementRef, List<Task>> doAftersByElementRef;
+
+	private TaskIndex(List<Page> pages) {
+		List<Task> allTasks = new ArrayList<>();
+		for(Page page : pages) {
+			for(Element element : page.getElements()) {
+				if(element instanceof Task) allTasks.add((Task)element);
+			}
+		}
+		// Verify unique page,id
+		Set<ElementRef> elementRefs = AoCollections.newHashSet(allTasks.size());
+		for(Task task : allTasks) {
+			if(!elementRefs.add(task.getElementRef())) {
+				throw new AssertionError("Duplicate task (page, id)");
+			}
+		}
+		// Invert dependency DAG for fast lookups of doAfters
+		Map<ElementRef, List<Task>> doAfters = new HashMap<>();
+		for(Task task : allTasks) {
+			for(ElementRef doBeforeRef : task.getDoBefores()) {
+				doAfters.computeIfAbsent(doBeforeRef, k -> new ArrayList<>()).add(task);
+			}
+		}
+		for(Map.Entry<ElementRef, List<Task>> entry : doAfters.entrySet()) {
+			entry.setValue(AoCollections.optimalUnmodifiableList(entry.getValue()));
+		}
+		this.tasks = Collections.unmodifiableList(allTasks);
+		this.doAftersByElementRef = Collections.unmodifiableMap(doAfters);
+	}
+
+	/**
+	 * Gets all tasks, in depth-first page order.
+	 */
+	List<Task> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * Gets the tasks that have a doBefore pointing to the given task.
+	 *
+	 * @return  The doAfters, in depth-first page order.  When none, an empty list.
+	 */
+	List<Task> getDoAfters(ElementRef elementRef) {
+		List<Task> doAfters = doAftersByElementRef.get(elementRef);
+		return doAfters == null ? Collections.emptyList() : doAfters;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.net.URIEncoder;
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.model.BookRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.renderer.html.HtmlRenderer;
+import com.semanticcms.core.renderer.html.PageIndex;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Builds the links to tasks for a single request.
+ * <p>
+ * The context path and book prefixes are encoded once per request instead of
+ * once per link, and a single buffer is reused for all links.
+ * </p>
+ */
+final class TaskLinkWriter {
+
+	private static final String REQUEST_ATTRIBUTE = TaskLinkWriter.class.getName();
+
+	/**
+	 * Gets the link writer for the given request, creating it when first needed.
+	 */
+	static TaskLinkWriter getInstance(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response
+	) {
+		TaskLinkWriter linkWriter = (TaskLinkWriter)request.getAttribute(REQUEST_ATTRIBUTE);
+		// Sub-requests may see the attribute of their parent request, but links are encoded by their own response
+		if(linkWriter == null || linkWriter.response != response) {
+			linkWriter = new TaskLinkWriter(servletContext, request, response);
+			request.setAttribute(REQUEST_ATTRIBUTE, linkWriter);
+		}
+		return linkWriter;
+	}
+
+	private final HttpServletResponse response;
+	private final HtmlRenderer htmlRenderer;
+	private final String contextPath;
+
+	/**
+	 * The encoded context path and book prefix, by book.
+	 */
+	private final Map<BookRef, String> bookPrefixes = new HashMap<>();
+
+	private final StringBuilder href = new StringBuilder();
+
+	private TaskLinkWriter(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response
+	) {
+		this.response = response;
+		this.htmlRenderer = HtmlRenderer.getInstance(servletContext);
+		this.contextPath = request.getContextPath();
+	}
+
+	String getLinkCssClass(Task task) {
+		return htmlRenderer.getLinkCssClass(task);
+	}
+
+	private String getBookPrefix(BookRef bookRef) throws IOException {
+		String bookPrefix = bookPrefixes.get(bookRef);
+		if(bookPrefix == null) {
+			StringBuilder sb = new StringBuilder();
+			URIEncoder.encodeURI(contextPath, sb);
+			URIEncoder.encodeURI(bookRef.getPrefix(), sb);
+			bookPrefix = sb.toString();
+			bookPrefixes.put(bookRef, bookPrefix);
+		}
+		return bookPrefix;
+	}
+
+	/**
+	 * Gets the encoded link to a task.
+	 *
+	 * @param  index  The index of the task's page in the current page index,
+	 *                or {@code null} when not in view=all mode.
+	 *
+	 * @see  PageIndex#getPageIndex(com.semanticcms.core.model.PageRef)
+	 */
+	// Synchronized in case shared by concurrent sub-requests on the same response
+	synchronized String getHref(Integer index, Page currentPage, Task task) throws IOException {
+		href.setLength(0);
+		Page taskPage = task.getPage();
+		if(index != null) {
+			// view=all mode
+			href.append('#');
+			URIEncoder.encodeURIComponent(
+				PageIndex.getRefId(
+					index,
+					task.getId()
+				),
+				href
+			);
+		} else if(taskPage.equals(currentPage)) {
+			// Task on this page, generate anchor-only link
+			href.append('#');
+			URIEncoder.encodeURIComponent(task.getId(), href);
+		} else {
+			// Task on other page, generate full link
+			PageRef taskPageRef = taskPage.getPageRef();
+			href.append(getBookPrefix(taskPageRef.getBookRef()));
+			URIEncoder.encodeURI(taskPageRef.getPath().toString(), href);
+			href.append('#');
+			URIEncoder.encodeURIComponent(task.getId(), href);
+		}
+		return response.encodeURL(href.toString());
+	}
+}
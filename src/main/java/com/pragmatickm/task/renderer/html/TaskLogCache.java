@@ -0,0 +1,155 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.lang.concurrent.ExecutionExceptions;
+import com.pragmatickm.task.model.TaskLog;
+import com.semanticcms.core.model.ResourceRef;
+import com.semanticcms.core.resources.ResourceStore;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * An application-scoped cache of the task logs requested by page and id,
+ * validated against the last-modified time and length of the task log XML
+ * resource.  Status computation loads task logs through
+ * {@link com.pragmatickm.task.model.Task#getTaskLog()} instead, which does not
+ * use this cache.
+ * <p>
+ * Concurrent requests for a task log that is not cached are coalesced, so a
+ * burst of requests loads and parses the XML only once.
+ * </p>
+ * <p>
+ * The cache is bounded, evicting the least recently used task logs.
+ * </p>
+ */
+final class TaskLogCache {
+
+	/**
+	 * The maximum number of task logs cached.
+	 */
+	private static final int MAX_ENTRIES = 4096;
+
+	private static final String APPLICATION_ATTRIBUTE = TaskLogCache.class.getName();
+
+	static TaskLogCache getInstance(ServletContext servletContext) {
+		TaskLogCache instance = (TaskLogCache)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+		if(instance == null) {
+			synchronized(TaskLogCache.class) {
+				instance = (TaskLogCache)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+				if(instance == null) {
+					instance = new TaskLogCache(TaskMetrics.getInstance(servletContext));
+					servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+				}
+			}
+		}
+		return instance;
+	}
+
+	private static class CachedTaskLog {
+
+		private final TaskLogVersion version;
+		private final TaskLog taskLog;
+
+		private CachedTaskLog(TaskLogVersion version, TaskLog taskLog) {
+			this.version = version;
+			this.taskLog = taskLog;
+		}
+	}
+
+	private final Map<ResourceRef, CachedTaskLog> taskLogs = new LinkedHashMap<ResourceRef, CachedTaskLog>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ResourceRef, CachedTaskLog> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * The task logs currently being loaded.
+	 */
+	private final ConcurrentMap<ResourceRef, CompletableFuture<CachedTaskLog>> loading = new ConcurrentHashMap<>();
+
+	private final TaskMetrics metrics;
+
+	private TaskLogCache(TaskMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	private TaskLog load(ResourceStore resourceStore, ResourceRef xmlFile) throws ServletException, IOException {
+		long startNanos = System.nanoTime();
+		TaskLog taskLog = TaskLog.getTaskLog(resourceStore, xmlFile);
+		metrics.taskLogLoadNanos.record(System.nanoTime() - startNanos);
+		return taskLog;
+	}
+
+	/**
+	 * Gets a task log, loading it only when not cached or the resource has changed.
+	 */
+	TaskLog getTaskLog(ResourceStore resourceStore, ResourceRef xmlFile) throws ServletException, IOException {
+		TaskLogVersion version = TaskLogVersion.getVersion(resourceStore, xmlFile);
+		CachedTaskLog cached;
+		synchronized(taskLogs) {
+			cached = taskLogs.get(xmlFile);
+		}
+		if(cached != null && cached.version.equals(version)) return cached.taskLog;
+		CompletableFuture<CachedTaskLog> mine = new CompletableFuture<>();
+		CompletableFuture<CachedTaskLog> existing = loading.putIfAbsent(xmlFile, mine);
+		if(existing != null) {
+			// Wait for the load already in progress
+			try {
+				cached = existing.get();
+			} catch(InterruptedException e) {
+				throw new ServletException(e);
+			} catch(ExecutionException e) {
+				// Maintain expected exception types while not losing stack trace
+				ExecutionExceptions.wrapAndThrow(e, IOException.class, IOException::new);
+				throw new ServletException(e);
+			}
+			if(cached.version.equals(version)) return cached.taskLog;
+			// Resource changed since that load started, load directly
+			return load(resourceStore, xmlFile);
+		}
+		try {
+			cached = new CachedTaskLog(version, load(resourceStore, xmlFile));
+			synchronized(taskLogs) {
+				taskLogs.put(xmlFile, cached);
+			}
+			mine.complete(cached);
+			return cached.taskLog;
+		} catch(Throwable t) {
+			mine.completeExceptionally(t);
+			throw t;
+		} finally {
+			loading.remove(xmlFile, mine);
+		}
+	}
+}
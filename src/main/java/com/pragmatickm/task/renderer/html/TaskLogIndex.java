@@ -0,0 +1,105 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.pragmatickm.task.model.TaskLog;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The index of the most recent entry of each status in a task log.
+ * Built once per task log and retained for as long as the task log.
+ */
+final class TaskLogIndex {
+
+	private static final TaskLog.Status[] STATUSES = TaskLog.Status.values();
+
+	/**
+	 * Weak keys, so the index is retained only for as long as the task log.
+	 */
+	private static final Map<TaskLog, TaskLogIndex> indexes = new WeakHashMap<>();
+
+	/**
+	 * Gets the index for the given task log, building it when first needed
+	 * or when the entries of the task log have changed.
+	 */
+	static TaskLogIndex getIndex(TaskLog taskLog) throws IOException {
+		List<TaskLog.Entry> entries = taskLog.getEntries();
+		TaskLogIndex index;
+		synchronized(indexes) {
+			index = indexes.get(taskLog);
+		}
+		if(index == null || !index.isCurrent(entries)) {
+			index = new TaskLogIndex(entries);
+			synchronized(indexes) {
+				indexes.put(taskLog, index);
+			}
+		}
+		return index;
+	}
+
+	private final List<TaskLog.Entry> entries;
+	private final int size;
+
+	/**
+	 * The index of the most recent entry, by status ordinal, or {@code -1} when none.
+	 */
+	private final int[] lastIndexByStatus;
+
+	private TaskLogIndex(List<TaskLog.Entry> entries) {
+		this.entries = entries;
+		this.size = entries.size();
+		int[] lastIndex = new int[STATUSES.length];
+		Arrays.fill(lastIndex, -1);
+		int remaining = lastIndex.length;
+		for(int i = size - 1; i >= 0 && remaining > 0; i--) {
+			int ordinal = entries.get(i).getStatus().ordinal();
+			if(lastIndex[ordinal] == -1) {
+				lastIndex[ordinal] = i;
+				remaining--;
+			}
+		}
+		this.lastIndexByStatus = lastIndex;
+	}
+
+	private boolean isCurrent(List<TaskLog.Entry> entries) {
+		return this.entries == entries && size == entries.size();
+	}
+
+	/**
+	 * Gets the most recent entry with any of the statuses in the filter.
+	 *
+	 * @return  The entry or {@code null} when none found
+	 */
+	TaskLog.Entry getMostRecentEntry(TaskLogStatusFilter filter) {
+		int mostRecent = -1;
+		for(TaskLog.Status status : filter.getStatusArray()) {
+			int index = lastIndexByStatus[status.ordinal()];
+			if(index > mostRecent) mostRecent = index;
+		}
+		return mostRecent == -1 ? null : entries.get(mostRecent);
+	}
+}
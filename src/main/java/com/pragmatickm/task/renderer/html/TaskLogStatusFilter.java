@@ -0,0 +1,92 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.lang.Strings;
+import com.pragmatickm.task.model.TaskLog;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A set of task log statuses, parsed once from a comma-separated list of
+ * status labels, for use in
+ * {@link TaskUtil#getMostRecentEntry(com.pragmatickm.task.model.TaskLog, com.pragmatickm.task.renderer.html.TaskLogStatusFilter)}.
+ */
+public final class TaskLogStatusFilter {
+
+	/**
+	 * The maximum number of parsed filters retained by {@link #valueOf(java.lang.String)}.
+	 */
+	private static final int MAX_CACHED = 1024;
+
+	private static final ConcurrentMap<String, TaskLogStatusFilter> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the filter for a comma-separated list of status labels.
+	 * Labels are trimmed and matched case-insensitively.
+	 * Labels not matching any status are ignored.
+	 */
+	public static TaskLogStatusFilter valueOf(String statuses) {
+		TaskLogStatusFilter filter = cache.get(statuses);
+		if(filter == null) {
+			EnumSet<TaskLog.Status> set = EnumSet.noneOf(TaskLog.Status.class);
+			// Split on comma only, because of "Nothing To Do" status having spaces
+			for(String label : Strings.split(statuses, ',')) {
+				String trimmed = label.trim();
+				for(TaskLog.Status status : TaskLog.Status.values()) {
+					if(status.getLabel().equalsIgnoreCase(trimmed)) set.add(status);
+				}
+			}
+			filter = new TaskLogStatusFilter(set);
+			if(cache.size() < MAX_CACHED) cache.putIfAbsent(statuses, filter);
+		}
+		return filter;
+	}
+
+	private final Set<TaskLog.Status> statuses;
+	private final TaskLog.Status[] statusArray;
+
+	private TaskLogStatusFilter(EnumSet<TaskLog.Status> statuses) {
+		this.statuses = Collections.unmodifiableSet(statuses);
+		this.statusArray = statuses.toArray(new TaskLog.Status[statuses.size()]);
+	}
+
+	public Set<TaskLog.Status> getStatuses() {
+		return statuses;
+	}
+
+	/**
+	 * Gets the statuses as an array, without defensive copy.
+	 */
+	TaskLog.Status[] getStatusArray() {
+		return statusArray;
+	}
+
+	@Override
+	public String toString() {
+		return statuses.toString();
+	}
+}
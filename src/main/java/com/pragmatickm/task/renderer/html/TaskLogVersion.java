@@ -0,0 +1,115 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.controller.Book;
+import com.semanticcms.core.controller.SemanticCMS;
+import com.semanticcms.core.model.ResourceRef;
+import com.semanticcms.core.resources.Resource;
+import com.semanticcms.core.resources.ResourceConnection;
+import com.semanticcms.core.resources.ResourceStore;
+import java.io.IOException;
+import javax.servlet.ServletContext;
+
+/**
+ * Identifies the version of a task log XML resource by its last-modified time and length.
+ * A change to either indicates the task log has changed.
+ */
+final class TaskLogVersion {
+
+	/**
+	 * The version of a task log that does not exist.
+	 */
+	static final TaskLogVersion NOT_EXISTS = new TaskLogVersion(false, 0, 0);
+
+	/**
+	 * Gets the current version of a task log resource.
+	 *
+	 * @return  The version or {@code null} when the version cannot be determined,
+	 *          such as when the book is not accessible or its resources are not available.
+	 */
+	static TaskLogVersion getVersion(ServletContext servletContext, ResourceRef xmlFile) throws IOException {
+		Book book = SemanticCMS.getInstance(servletContext).getBook(xmlFile.getBookRef());
+		if(!book.isAccessible()) return null;
+		ResourceStore resourceStore = book.getResources();
+		if(!resourceStore.isAvailable()) return null;
+		return getVersion(resourceStore, xmlFile);
+	}
+
+	/**
+	 * Gets the current version of a task log resource from the given store.
+	 */
+	static TaskLogVersion getVersion(ResourceStore resourceStore, ResourceRef xmlFile) throws IOException {
+		Resource resource = resourceStore.getResource(xmlFile.getPath());
+		try (ResourceConnection conn = resource.open()) {
+			if(!conn.exists()) return NOT_EXISTS;
+			return new TaskLogVersion(true, conn.getLastModified(), conn.getLength());
+		}
+	}
+
+	/**
+	 * Gets the current version of the task log of the given task.
+	 *
+	 * @see  #getVersion(javax.servlet.ServletContext, com.semanticcms.core.model.ResourceRef)
+	 */
+	static TaskLogVersion getVersion(ServletContext servletContext, Task task) throws IOException {
+		return getVersion(
+			servletContext,
+			TaskHtmlRenderer.getTaskLogXmlFile(task.getPage().getPageRef(), task.getId())
+		);
+	}
+
+	private final boolean exists;
+	private final long lastModified;
+	private final long length;
+
+	private TaskLogVersion(boolean exists, long lastModified, long length) {
+		this.exists = exists;
+		this.lastModified = lastModified;
+		this.length = length;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof TaskLogVersion)) return false;
+		TaskLogVersion other = (TaskLogVersion)obj;
+		return
+			exists == other.exists
+			&& lastModified == other.lastModified
+			&& length == other.length;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Boolean.hashCode(exists);
+		hash = hash * 31 + Long.hashCode(lastModified);
+		hash = hash * 31 + Long.hashCode(length);
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return exists ? ("lastModified=" + lastModified + ", length=" + length) : "not exists";
+	}
+}
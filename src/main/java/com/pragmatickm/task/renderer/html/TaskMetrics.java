@@ -0,0 +1,162 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.servlet.ServletContext;
+
+/**
+ * The application-scoped metrics of task rendering, registered with the
+ * platform MBean server when first used.
+ *
+ * @see  TaskMetricsMXBean
+ * @see  TaskMetricsListener
+ */
+final class TaskMetrics implements TaskMetricsMXBean {
+
+	private static final String APPLICATION_ATTRIBUTE = TaskMetrics.class.getName();
+
+	static TaskMetrics getInstance(ServletContext servletContext) {
+		TaskMetrics instance = (TaskMetrics)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+		if(instance == null) {
+			synchronized(TaskMetrics.class) {
+				instance = (TaskMetrics)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+				if(instance == null) {
+					instance = new TaskMetrics(servletContext);
+					instance.register();
+					servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Unregisters the metrics of an application, if registered.
+	 */
+	static void destroy(ServletContext servletContext) {
+		synchronized(TaskMetrics.class) {
+			TaskMetrics instance = (TaskMetrics)servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+			if(instance != null) {
+				servletContext.removeAttribute(APPLICATION_ATTRIBUTE);
+				instance.unregister();
+			}
+		}
+	}
+
+	private final ServletContext servletContext;
+	private ObjectName objectName;
+
+	final LongAdder statusComputations = new LongAdder();
+	final Histogram allTasksPagesVisited = new Histogram();
+	final Histogram doAftersPagesVisited = new Histogram();
+	final Histogram taskPartitionPagesVisited = new Histogram();
+	final Histogram multipleStatusesConcurrentNanos = new Histogram();
+	final Histogram multipleStatusesSequentialNanos = new Histogram();
+	final Histogram taskLogLoadNanos = new Histogram();
+
+	private TaskMetrics(ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	private void register() {
+		try {
+			ObjectName name = new ObjectName(
+				TaskMetrics.class.getPackage().getName()
+				+ ":type=TaskMetrics,context=" + ObjectName.quote(servletContext.getContextPath())
+			);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new StandardMBean(this, TaskMetricsMXBean.class, true), name);
+			objectName = name;
+		} catch(JMException | SecurityException e) {
+			// Metrics are still collected, just not published
+			servletContext.log("Unable to register task metrics MBean", e);
+		}
+	}
+
+	private void unregister() {
+		if(objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch(JMException | SecurityException e) {
+				servletContext.log("Unable to unregister task metrics MBean", e);
+			}
+			objectName = null;
+		}
+	}
+
+	@Override
+	public long getStatusCacheHits() {
+		return StatusCache.getInstance(servletContext).getHits();
+	}
+
+	@Override
+	public long getStatusCacheMisses() {
+		return StatusCache.getInstance(servletContext).getMisses();
+	}
+
+	@Override
+	public int getStatusCacheSize() {
+		return StatusCache.getInstance(servletContext).size();
+	}
+
+	@Override
+	public long getStatusComputations() {
+		return statusComputations.sum();
+	}
+
+	@Override
+	public HistogramSnapshot getAllTasksPagesVisited() {
+		return allTasksPagesVisited.getSnapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getDoAftersPagesVisited() {
+		return doAftersPagesVisited.getSnapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getTaskPartitionPagesVisited() {
+		return taskPartitionPagesVisited.getSnapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getMultipleStatusesConcurrentNanos() {
+		return multipleStatusesConcurrentNanos.getSnapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getMultipleStatusesSequentialNanos() {
+		return multipleStatusesSequentialNanos.getSnapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getTaskLogLoadNanos() {
+		return taskLogLoadNanos.getSnapshot();
+	}
+}
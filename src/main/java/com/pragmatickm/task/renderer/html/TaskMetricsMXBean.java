@@ -0,0 +1,94 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+/**
+ * The metrics of task rendering, published once per web application as
+ * <code>com.pragmatickm.task.renderer.html:type=TaskMetrics,context="<i>contextPath</i>"</code>.
+ * <p>
+ * Counts are totals since the application started.  Durations are in nanoseconds.
+ * </p>
+ */
+public interface TaskMetricsMXBean {
+
+	/**
+	 * Gets the number of task statuses found in the status cache shared between requests.
+	 */
+	long getStatusCacheHits();
+
+	/**
+	 * Gets the number of task statuses not found in the status cache shared between requests.
+	 */
+	long getStatusCacheMisses();
+
+	/**
+	 * Gets the number of task statuses in the status cache shared between requests.
+	 */
+	int getStatusCacheSize();
+
+	/**
+	 * Gets the number of task statuses computed.
+	 */
+	long getStatusComputations();
+
+	/**
+	 * Gets the pages visited per page traversal in
+	 * {@link TaskUtil#getAllTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+	 */
+	HistogramSnapshot getAllTasksPagesVisited();
+
+	/**
+	 * Gets the pages visited per page traversal while validating the index used by
+	 * {@link TaskUtil#getDoAfters(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task)}.
+	 */
+	HistogramSnapshot getDoAftersPagesVisited();
+
+	/**
+	 * Gets the pages visited per page traversal in
+	 * {@link TaskUtil#getReadyTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)},
+	 * {@link TaskUtil#getBlockedTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)},
+	 * and {@link TaskUtil#getFutureTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+	 */
+	HistogramSnapshot getTaskPartitionPagesVisited();
+
+	/**
+	 * Gets the time spent computing statuses concurrently in
+	 * {@link TaskUtil#getMultipleStatuses(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.util.Collection)}.
+	 */
+	HistogramSnapshot getMultipleStatusesConcurrentNanos();
+
+	/**
+	 * Gets the time spent computing statuses sequentially in
+	 * {@link TaskUtil#getMultipleStatuses(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.util.Collection)}.
+	 */
+	HistogramSnapshot getMultipleStatusesSequentialNanos();
+
+	/**
+	 * Gets the time spent loading and parsing each task log requested by page and
+	 * id, such as through
+	 * {@link TaskUtil#getTaskLogInDomain(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, com.aoapps.net.DomainName, com.aoapps.net.Path, java.lang.String, java.lang.String)}.
+	 * The task logs loaded by {@link com.pragmatickm.task.model.Task#getTaskLog()}
+	 * while computing statuses are not included.
+	 */
+	HistogramSnapshot getTaskLogLoadNanos();
+}
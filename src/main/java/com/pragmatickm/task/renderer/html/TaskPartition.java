@@ -0,0 +1,71 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.collections.AoCollections;
+import com.pragmatickm.task.model.Task;
+import java.util.List;
+
+/**
+ * The tasks under a page that are visible to a user, sorted into ready,
+ * blocked, and future tasks.  A task is in at most one of the ready and
+ * blocked lists, but may also be in the future list when its status is both
+ * ready and in the future.  Each list is in depth-first page order.
+ *
+ * @see  TaskUtil#getTaskPartition(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)
+ */
+public class TaskPartition {
+
+	private final List<Task> readyTasks;
+	private final List<Task> blockedTasks;
+	private final List<Task> futureTasks;
+
+	TaskPartition(
+		List<Task> readyTasks,
+		List<Task> blockedTasks,
+		List<Task> futureTasks
+	) {
+		this.readyTasks = AoCollections.optimalUnmodifiableList(readyTasks);
+		this.blockedTasks = AoCollections.optimalUnmodifiableList(blockedTasks);
+		this.futureTasks = AoCollections.optimalUnmodifiableList(futureTasks);
+	}
+
+	public List<Task> getReadyTasks() {
+		return readyTasks;
+	}
+
+	public List<Task> getBlockedTasks() {
+		return blockedTasks;
+	}
+
+	public List<Task> getFutureTasks() {
+		return futureTasks;
+	}
+
+	/**
+	 * Checks if there are no ready, blocked, or future tasks.
+	 */
+	public boolean isEmpty() {
+		return readyTasks.isEmpty() && blockedTasks.isEmpty() && futureTasks.isEmpty();
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * pragmatickm-task-renderer-html - Tasks rendered as HTML in a Servlet environment.
+ * Copyright (C) 2021  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-renderer-html.
+ *
+ * pragmatickm-task-renderer-html is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-renderer-html is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-renderer-html.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.pragmatickm.task.renderer.html;
+
+import com.aoapps.hodgepodge.schedule.Recurring;
+import com.aoapps.lang.util.UnmodifiableCalendar;
+import com.pragmatickm.task.model.Task;
+import java.util.Objects;
+
+/**
+ * The schedule of a task as declared on its page: its "on" date, recurring
+ * schedule, and whether the schedule is relative.
+ * <p>
+ * Each capture of a page creates new {@link Task} instances, so caches shared
+ * between requests are keyed by {@link com.semanticcms.core.model.ElementRef}
+ * and compare the schedule to detect when the page has changed it.
+ * </p>
+ */
+final class TaskSchedule {
+
+	static TaskSchedule of(Task task) {
+		UnmodifiableCalendar on = task.getOn();
+		Recurring recurring = task.getRecurring();
+		return new TaskSchedule(
+			on != null,
+			on == null ? 0 : on.getTimeInMillis(),
+			recurring == null ? null : recurring.getRecurringDisplay(),
+			task.getRelative()
+		);
+	}
+
+	private final boolean hasOn;
+	private final long onMillis;
+	private final String recurring;
+	private final boolean relative;
+
+	private TaskSchedule(boolean hasOn, long onMillis, String recurring, boolean relative) {
+		this.hasOn = hasOn;
+		this.onMillis = onMillis;
+		this.recurring = recurring;
+		this.relative = relative;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof TaskSchedule)) return false;
+		TaskSchedule other = (TaskSchedule)obj;
+		return
+			hasOn == other.hasOn
+			&& onMillis == other.onMillis
+			&& Objects.equals(recurring, other.recurring)
+			&& relative == other.relative;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Boolean.hashCode(hasOn);
+		hash = hash * 31 + Long.hashCode(onMillis);
+		hash = hash * 31 + Objects.hashCode(recurring);
+		hash = hash * 31 + Boolean.hashCode(relative);
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "on=" + (hasOn ? onMillis : "null") + ", recurring=" + recurring + ", relative=" + relative;
+	}
+}
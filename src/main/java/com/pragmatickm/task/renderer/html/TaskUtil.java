@@ -23,11 +23,10 @@
 package com.pragmatickm.task.renderer.html;
 
 import com.aoapps.collections.AoCollections;
+import com.aoapps.concurrent.Executor;
 import com.aoapps.hodgepodge.schedule.Recurring;
 import com.aoapps.hodgepodge.util.Tuple2;
-import com.aoapps.lang.Strings;
 import com.aoapps.lang.concurrent.ExecutionExceptions;
-import com.aoapps.lang.exception.WrappedException;
 import com.aoapps.lang.util.CalendarUtils;
 import com.aoapps.lang.util.UnmodifiableCalendar;
 import com.aoapps.net.DomainName;
@@ -60,21 +59,29 @@ import com.semanticcms.core.model.ResourceRef;
 import com.semanticcms.core.pages.CaptureLevel;
 import com.semanticcms.core.resources.ResourceStore;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.EnumSet;
-import java.util.GregorianCalendar;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -108,7 +115,7 @@ final public class TaskUtil {
 		if(!resourceStore.isAvailable()) {
 			throw new IllegalArgumentException("Resource store is not available: " + bookRef);
 		}
-		return TaskLog.getTaskLog(
+		return TaskLogCache.getInstance(servletContext).getTaskLog(
 			resourceStore,
 			xmlFile
 		);
@@ -139,39 +146,95 @@ final public class TaskUtil {
 		return getTaskLogInDomain(servletContext, request, null, null, page, taskId);
 	}
 
+	/**
+	 * Gets the most recent entry with any of the given statuses.
+	 *
+	 * @param  statuses  A comma-separated list of status labels
+	 *
+	 * @see  TaskLogStatusFilter#valueOf(java.lang.String)
+	 */
 	public static TaskLog.Entry getMostRecentEntry(TaskLog taskLog, String statuses) throws IOException {
-		String[] trimmed;
-		int size;
-		{
-			List<String> split = Strings.split(statuses, ','); // Split on comma only, because of "Nothing To Do" status having spaces
-			size = split.size();
-			trimmed = new String[size];
-			for(int i = 0; i < size; i++) {
-				trimmed[i] = split.get(i).trim();
-			}
-		}
-		List<TaskLog.Entry> entries = taskLog.getEntries();
-		for(int i = entries.size() - 1; i >= 0; i--) {
-			TaskLog.Entry entry = entries.get(i);
-			String label = entry.getStatus().getLabel();
-			for(int j = 0; j < size; j++) {
-				if(label.equalsIgnoreCase(trimmed[j])) {
-					return entry;
-				}
-			}
-		}
-		return null;
+		return getMostRecentEntry(taskLog, TaskLogStatusFilter.valueOf(statuses));
+	}
+
+	/**
+	 * Gets the most recent entry with any of the statuses in the filter.
+	 * This is a lookup in an index built once per task log.
+	 */
+	public static TaskLog.Entry getMostRecentEntry(TaskLog taskLog, TaskLogStatusFilter filter) throws IOException {
+		return TaskLogIndex.getIndex(taskLog).getMostRecentEntry(filter);
 	}
 
 	private static final String GET_STATUS_CACHE_KEY = TaskUtil.class.getName() + ".getStatus";
 
-	@SuppressWarnings("unchecked")
-	private static Map<Task, StatusResult> getStatusCache(Cache cache) {
-		return cache.getAttribute(
-			GET_STATUS_CACHE_KEY,
+	/**
+	 * Gets a request-scoped map for the day of the given snapshot.
+	 */
+	private static <V> Map<Task, V> getDayMap(Cache cache, String key, AsOf asOf) {
+		@SuppressWarnings("unchecked")
+		Map<Long, Map<Task, V>> mapsByDay = cache.getAttribute(
+			key,
 			Map.class,
 			() -> cache.newMap()
 		);
+		Long day = asOf.getTodayMillis();
+		Map<Task, V> map = mapsByDay.get(day);
+		if(map == null) {
+			map = cache.newMap();
+			Map<Task, V> existing = mapsByDay.putIfAbsent(day, map);
+			if(existing != null) map = existing;
+		}
+		return map;
+	}
+
+	/**
+	 * Gets the statuses already computed in this request for the day of the given snapshot.
+	 */
+	private static Map<Task, StatusResult> getStatusCache(Cache cache, AsOf asOf) {
+		return getDayMap(cache, GET_STATUS_CACHE_KEY, asOf);
+	}
+
+	private static final String ALL_DO_BEFORES_COMPLETED_CACHE_KEY = TaskUtil.class.getName() + ".areAllDoBeforesCompleted";
+
+	/**
+	 * Gets whether all doBefores were completed, for each task with a status
+	 * computed in this request for the day of the given snapshot.
+	 */
+	private static Map<Task, Boolean> getAllDoBeforesCompletedCache(Cache cache, AsOf asOf) {
+		return getDayMap(cache, ALL_DO_BEFORES_COMPLETED_CACHE_KEY, asOf);
+	}
+
+	private static final String AS_OF_CACHE_KEY = TaskUtil.class.getName() + ".getAsOf";
+
+	/**
+	 * Gets the day and instant used for all computations in the current request,
+	 * taken when first needed.
+	 */
+	public static AsOf getAsOf(HttpServletRequest request) {
+		return getAsOf(CacheFilter.getCache(request));
+	}
+
+	static AsOf getAsOf(Cache cache) {
+		return cache.getAttribute(
+			AS_OF_CACHE_KEY,
+			AsOf.class,
+			AsOf::now
+		);
+	}
+
+	/**
+	 * Gets the number of statuses found in the cache shared between requests.
+	 */
+	public static long getStatusCacheHits(ServletContext servletContext) {
+		return StatusCache.getInstance(servletContext).getHits();
+	}
+
+	/**
+	 * Gets the number of statuses not found in the cache shared between requests,
+	 * or found with any of their inputs changed.
+	 */
+	public static long getStatusCacheMisses(ServletContext servletContext) {
+		return StatusCache.getInstance(servletContext).getMisses();
 	}
 
 	/**
@@ -237,7 +300,31 @@ final public class TaskUtil {
 			response,
 			task,
 			cache,
-			getStatusCache(cache)
+			getAsOf(cache)
+		);
+	}
+
+	/**
+	 * Gets the status of a task as of the given day.
+	 *
+	 * @see  #getStatus(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task)
+	 */
+	public static StatusResult getStatus(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Task task,
+		Cache cache,
+		AsOf asOf
+	) throws TaskException, ServletException, IOException {
+		return getStatus(
+			servletContext,
+			request,
+			response,
+			task,
+			cache,
+			asOf,
+			getStatusCache(cache, asOf)
 		);
 	}
 
@@ -247,63 +334,348 @@ final public class TaskUtil {
 		HttpServletResponse response,
 		Task task,
 		Cache cache,
+		AsOf asOf,
 		Map<Task, StatusResult> statusCache
 	) throws TaskException, ServletException, IOException {
 		StatusResult sr = statusCache.get(task);
 		if(sr == null) {
-			// TODO: Concurrency limiter here?
-			sr = doGetStatus(servletContext, request, response, task, cache, statusCache);
-			statusCache.put(task, sr);
+			// Only one thread computes the status of a task, others wait for its result
+			Map<Task, StatusInFlight> inFlight = getStatusInFlight(cache, asOf);
+			StatusInFlight mine = new StatusInFlight();
+			StatusInFlight existing = inFlight.putIfAbsent(task, mine);
+			if(existing == null) {
+				try {
+					// Check again, in case completed between get and putIfAbsent
+					sr = statusCache.get(task);
+					if(sr == null) {
+						sr = doGetStatus(servletContext, request, response, task, cache, asOf, statusCache);
+						statusCache.put(task, sr);
+					}
+					mine.future.complete(sr);
+				} catch(Throwable t) {
+					mine.future.completeExceptionally(t);
+					throw t;
+				} finally {
+					inFlight.remove(task, mine);
+				}
+			} else {
+				sr = awaitStatus(task, existing);
+			}
 		}
 		return sr;
 	}
 
-	// TODO: A way to push-up the schedule to the earliest date of something waiting for this task?
-	//       This would be similar for priority inheritence, but also affects the scheduled date considered for ordering.
-	// TODO: Support multiple schedules
-	private static StatusResult doGetStatus(
+	/**
+	 * A status computation in progress.
+	 */
+	private static class StatusInFlight {
+		private final Thread owner = Thread.currentThread();
+		private final CompletableFuture<StatusResult> future = new CompletableFuture<>();
+	}
+
+	private static final String GET_STATUS_IN_FLIGHT_KEY = TaskUtil.class.getName() + ".getStatus.inFlight";
+
+	private static Map<Task, StatusInFlight> getStatusInFlight(Cache cache, AsOf asOf) {
+		return getDayMap(cache, GET_STATUS_IN_FLIGHT_KEY, asOf);
+	}
+
+	/**
+	 * Waits for a status being computed by another thread.
+	 *
+	 * @throws  TaskException  when the status is being computed by this thread, directly
+	 *                         or through other waiting threads and executor subtasks,
+	 *                         which can only happen when the "Do Before" tasks form a cycle.
+	 *
+	 * @see  StatusWaits
+	 */
+	private static StatusResult awaitStatus(Task task, StatusInFlight inFlight) throws TaskException, ServletException, IOException {
+		if(!StatusWaits.beginWait(inFlight.owner)) throw new TaskException("Cycle detected in \"Do Before\" tasks: " + task);
+		try {
+			return inFlight.future.get();
+		} catch(InterruptedException e) {
+			throw new ServletException(e);
+		} catch(ExecutionException e) {
+			throw wrapExecutionException(e);
+		} finally {
+			StatusWaits.endWait();
+		}
+	}
+
+	/**
+	 * Gets a doBefore task from its captured page.
+	 */
+	static Task getDoBefore(Page capturedPage, ElementRef doBeforeRef) throws TaskException {
+		String taskId = doBeforeRef.getId();
+		Element elem = capturedPage.getElementsById().get(taskId);
+		if(elem == null) throw new TaskException("doBefore not found: " + doBeforeRef);
+		if(!(elem instanceof Task)) throw new TaskException("doBefore \"" + taskId + "\" is not a task: " + elem.getClass().getName());
+		if(capturedPage.getGeneratedIds().contains(taskId)) throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + elem);
+		return (Task)elem;
+	}
+
+	/**
+	 * A task run concurrently in its own subrequest.
+	 */
+	@FunctionalInterface
+	static interface SubrequestCallable<V> {
+		V call(HttpServletRequest subrequest, HttpServletResponse subresponse) throws Exception;
+	}
+
+	/**
+	 * Runs tasks concurrently on behalf of a request.  The thread-safe copies of
+	 * the request and response are made once, on the thread of the request, and
+	 * each task is given its own subrequest and subresponse of them.
+	 */
+	static class Subrequests {
+
+		private final HttpServletRequest threadSafeReq;
+		private final HttpServletResponse threadSafeResp;
+		private final TempFileContext tempFileContext;
+
+		Subrequests(HttpServletRequest request, HttpServletResponse response) {
+			threadSafeReq = new UnmodifiableCopyHttpServletRequest(request);
+			threadSafeResp = new UnmodifiableCopyHttpServletResponse(response);
+			tempFileContext = TempFileContextEE.get(request);
+		}
+
+		<V> Callable<V> wrap(SubrequestCallable<V> callable) {
+			return () -> callable.call(
+				new HttpServletSubRequest(threadSafeReq),
+				new HttpServletSubResponse(threadSafeResp, tempFileContext)
+			);
+		}
+	}
+
+	/**
+	 * Maintains expected exception types while not losing stack trace.
+	 */
+	static ServletException wrapExecutionException(ExecutionException e) throws TaskException, IOException {
+		// TODO: Once pragmatickm-task-model is SNAPSHOT again: ExecutionExceptions.wrapAndThrow(e, TaskException.class, TaskException::new);
+		// TODO: Compatibility implementation using initCause:
+		ExecutionExceptions.wrapAndThrow(e, TaskException.class,
+			(message, ee) -> {
+				TaskException te = new TaskException(message);
+				te.initCause(ee);
+				return te;
+			}
+		);
+		ExecutionExceptions.wrapAndThrow(e, IOException.class, IOException::new);
+		return new ServletException(e);
+	}
+
+	/**
+	 * Captures a page containing one or more of the doBefores of a task.
+	 */
+	static Page captureDoBeforePage(
 		ServletContext servletContext,
 		HttpServletRequest request,
 		HttpServletResponse response,
 		Task task,
-		Cache cache,
-		Map<Task, StatusResult> statusCache
+		PageRef pageRef,
+		Cache cache
+	) throws ServletException, IOException {
+		TaskEvents.DoBeforeCapture event = new TaskEvents.DoBeforeCapture();
+		event.begin();
+		Page page = CapturePage.capturePage(
+			servletContext,
+			request,
+			response,
+			pageRef,
+			CaptureLevel.META,
+			cache
+		);
+		event.finish(task, pageRef);
+		return page;
+	}
+
+	/**
+	 * Checks if all doBefores of a task have a completed schedule.
+	 * Stops at the first doBefore known to be incomplete.
+	 * <p>
+	 * When concurrent subrequests are enabled and the doBefores are on more
+	 * than one page, each distinct page is captured concurrently.
+	 * </p>
+	 */
+	private static boolean areAllDoBeforesCompleted(
+		final ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Task task,
+		final Cache cache,
+		final AsOf asOf,
+		final Map<Task, StatusResult> statusCache
 	) throws TaskException, ServletException, IOException {
-		UnmodifiableCalendar on = task.getOn();
-		Recurring recurring = task.getRecurring();
-		boolean relative = task.getRelative();
-		// Check if all dependencies are completed
-		boolean allDoBeforesCompleted = true;
-		// TODO: Concurrent getDoBefores?
-		for(ElementRef doBeforeRef : task.getDoBefores()) {
-			Page capturedPage = CapturePage.capturePage(
+		Set<ElementRef> doBeforeRefs = task.getDoBefores();
+		int size = doBeforeRefs.size();
+		if(size == 0) return true;
+		if(
+			size > 1
+			&& ConcurrencyCoordinator.useConcurrentSubrequests(request)
+		) {
+			// Group by page, so each page is only captured once
+			Map<PageRef, List<ElementRef>> doBeforeRefsByPage = AoCollections.newLinkedHashMap(size);
+			for(ElementRef doBeforeRef : doBeforeRefs) {
+				doBeforeRefsByPage.computeIfAbsent(doBeforeRef.getPageRef(), k -> new ArrayList<>()).add(doBeforeRef);
+			}
+			int numPages = doBeforeRefsByPage.size();
+			if(numPages > 1) {
+				// Concurrent implementation
+				Subrequests subrequests = new Subrequests(request, response);
+				final Executor perProcessor = SemanticCMS.getInstance(servletContext).getExecutors().getPerProcessor();
+				CompletionService<Boolean> completionService = new ExecutorCompletionService<>(
+					command -> perProcessor.submit(() -> {
+						command.run();
+						return null;
+					})
+				);
+				// Set once any doBefore is known to be incomplete, skipping the work not yet started
+				final AtomicBoolean incomplete = new AtomicBoolean();
+				for(Map.Entry<PageRef, List<ElementRef>> entry : doBeforeRefsByPage.entrySet()) {
+					final PageRef pageRef = entry.getKey();
+					final List<ElementRef> pageDoBeforeRefs = entry.getValue();
+					completionService.submit(StatusWaits.subtask(subrequests.wrap((subrequest, subresponse) -> {
+						if(incomplete.get()) return false;
+						Page capturedPage = captureDoBeforePage(
+							servletContext,
+							subrequest,
+							subresponse,
+							task,
+							pageRef,
+							cache
+						);
+						for(ElementRef doBeforeRef : pageDoBeforeRefs) {
+							if(incomplete.get()) return false;
+							StatusResult doBeforeStatus = getStatus(
+								servletContext,
+								subrequest,
+								subresponse,
+								getDoBefore(capturedPage, doBeforeRef),
+								cache,
+								asOf,
+								statusCache
+							);
+							if(!doBeforeStatus.isCompletedSchedule()) {
+								incomplete.set(true);
+								return false;
+							}
+						}
+						return true;
+					})));
+				}
+				int completed = 0;
+				try {
+					while(completed < numPages) {
+						Future<Boolean> future = completionService.take();
+						completed++;
+						if(!future.get()) return false;
+					}
+					return true;
+				} catch(InterruptedException e) {
+					throw new ServletException(e);
+				} catch(ExecutionException e) {
+					throw wrapExecutionException(e);
+				} finally {
+					// Tasks not yet started return immediately
+					incomplete.set(true);
+					// Wait for the tasks already running, so none use the subrequests after returning
+					boolean interrupted = false;
+					while(completed < numPages) {
+						try {
+							completionService.take();
+							completed++;
+						} catch(InterruptedException e) {
+							interrupted = true;
+						}
+					}
+					if(interrupted) Thread.currentThread().interrupt();
+				}
+			}
+		}
+		// Sequential implementation
+		for(ElementRef doBeforeRef : doBeforeRefs) {
+			Page capturedPage = captureDoBeforePage(
 				servletContext,
 				request,
 				response,
+				task,
 				doBeforeRef.getPageRef(),
-				CaptureLevel.META,
 				cache
 			);
-			String taskId = doBeforeRef.getId();
-			Element elem = capturedPage.getElementsById().get(taskId);
-			if(elem == null) throw new TaskException("doBefore not found: " + doBeforeRef);
-			if(!(elem instanceof Task)) throw new TaskException("doBefore \"" + taskId + "\" is not a task: " + elem.getClass().getName());
-			if(capturedPage.getGeneratedIds().contains(taskId)) throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + elem);
-			Task doBefore = (Task)elem;
 			StatusResult doBeforeStatus = getStatus(
 				servletContext,
 				request,
 				response,
-				doBefore,
+				getDoBefore(capturedPage, doBeforeRef),
 				cache,
+				asOf,
 				statusCache
 			);
 			if(!doBeforeStatus.isCompletedSchedule()) {
-				allDoBeforesCompleted = false;
-				break;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// TODO: A way to push-up the schedule to the earliest date of something waiting for this task?
+	//       This would be similar for priority inheritence, but also affects the scheduled date considered for ordering.
+	// TODO: Support multiple schedules
+	private static StatusResult doGetStatus(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Task task,
+		Cache cache,
+		AsOf asOf,
+		Map<Task, StatusResult> statusCache
+	) throws TaskException, ServletException, IOException {
+		TaskEvents.Status event = new TaskEvents.Status();
+		event.begin();
+		// Check if all dependencies are completed
+		boolean allDoBeforesCompleted = areAllDoBeforesCompleted(
+			servletContext,
+			request,
+			response,
+			task,
+			cache,
+			asOf,
+			statusCache
+		);
+		getAllDoBeforesCompletedCache(cache, asOf).put(task, allDoBeforesCompleted);
+		final UnmodifiableCalendar today = asOf.getToday();
+		final long todayMillis = asOf.getTodayMillis();
+		// Use the status from a previous request when none of its inputs have changed
+		StatusCache appStatusCache = StatusCache.getInstance(servletContext);
+		TaskLogVersion taskLogVersion = TaskLogVersion.getVersion(servletContext, task);
+		if(taskLogVersion != null) {
+			StatusResult cached = appStatusCache.get(task, todayMillis, taskLogVersion, allDoBeforesCompleted);
+			if(cached != null) {
+				event.finish(task, true);
+				return cached;
 			}
 		}
-		final GregorianCalendar today = CalendarUtils.getToday();
+		TaskMetrics.getInstance(servletContext).statusComputations.increment();
+		StatusResult status = doGetStatus(servletContext, task, taskLogVersion, allDoBeforesCompleted, today);
+		if(taskLogVersion != null) {
+			appStatusCache.put(task, todayMillis, taskLogVersion, allDoBeforesCompleted, status);
+		}
+		event.finish(task, false);
+		return status;
+	}
+
+	/**
+	 * @param  taskLogVersion  The version of the task log, or {@code null} when unknown
+	 */
+	private static StatusResult doGetStatus(
+		ServletContext servletContext,
+		Task task,
+		TaskLogVersion taskLogVersion,
+		boolean allDoBeforesCompleted,
+		final Calendar today
+	) throws TaskException, IOException {
+		UnmodifiableCalendar on = task.getOn();
+		Recurring recurring = task.getRecurring();
+		boolean relative = task.getRelative();
 		final long todayMillis = today.getTimeInMillis();
 		TaskLog taskLog = task.getTaskLog();
 		if(on==null && recurring==null) {
@@ -336,27 +708,7 @@ final public class TaskUtil {
 					);
 				}
 			}
-			if(allDoBeforesCompleted) {
-				return new StatusResult(
-					StatusResult.Style.NEW,
-					"New",
-					null,
-					false,
-					true,
-					false,
-					null
-				);
-			} else {
-				return new StatusResult(
-					StatusResult.Style.NEW_WAITING_DO_AFTER,
-					"New waiting for \"Do Before\"",
-					null,
-					false,
-					false,
-					false,
-					null
-				);
-			}
+			return StatusResult.newTask(allDoBeforesCompleted);
 		} else if(on!=null && recurring==null) {
 			// Scheduled, non-recurring task
 			TaskLog.Entry entry = taskLog.getMostRecentEntry(on);
@@ -391,51 +743,11 @@ final public class TaskUtil {
 			}
 			// Past
 			if(on.before(today)) {
-				if(allDoBeforesCompleted) {
-					return new StatusResult(
-						StatusResult.Style.LATE,
-						"Late " + CalendarUtils.formatDate(on),
-						entry!=null ? entry.getComments() : null,
-						false,
-						true,
-						false,
-						on
-					);
-				} else {
-					return new StatusResult(
-						StatusResult.Style.LATE_WAITING_DO_AFTER,
-						"Late " + CalendarUtils.formatDate(on) + " waiting for \"Do Before\"",
-						entry!=null ? entry.getComments() : null,
-						false,
-						false,
-						false,
-						on
-					);
-				}
+				return StatusResult.late(entry!=null ? entry.getComments() : null, allDoBeforesCompleted, on);
 			}
 			// Present
 			if(on.getTimeInMillis() == todayMillis) {
-				if(allDoBeforesCompleted) {
-					return new StatusResult(
-						StatusResult.Style.DUE_TODAY,
-						"Due Today",
-						entry!=null ? entry.getComments() : null,
-						false,
-						true,
-						false,
-						on
-					);
-				} else {
-					return new StatusResult(
-						StatusResult.Style.DUE_TODAY_WAITING_DO_AFTER,
-						"Due Today waiting for \"Do Before\"",
-						entry!=null ? entry.getComments() : null,
-						false,
-						false,
-						false,
-						on
-					);
-				}
+				return StatusResult.dueToday(entry!=null ? entry.getComments() : null, allDoBeforesCompleted, on);
 			}
 			// Future
 			if(entryStatus != null) {
@@ -448,15 +760,8 @@ final public class TaskUtil {
 					on
 				);
 			}
-			return new StatusResult(
-				StatusResult.Style.IN_FUTURE,
-				"Waiting until " + CalendarUtils.formatDate(on),
-				null,
-				false, // Was true, but if never done and waiting for future, it isn't completed
-				false,
-				true,
-				on
-			);
+			// Not completed: was true, but if never done and waiting for future, it isn't completed
+			return StatusResult.waitingUntil(false, on);
 		} else {
 			// Recurring task (possibly with null "on" date)
 			final Calendar firstIncomplete;
@@ -477,14 +782,10 @@ final public class TaskUtil {
 						SortedSet<? extends Calendar> scheduledOns = entry.getScheduledOns();
 						//String checkResult = recurring.checkScheduleFrom(completedOn, "relative");
 						//if(checkResult != null) throw new TaskException(checkResult);
-						Iterator<Calendar> recurringIter = recurring.getScheduleIterator(completedOn);
 						// Find the first date that is after both the completedOn and scheduledOn
-						do {
-							recurringFrom = recurringIter.next();
-						} while(
-							recurringFrom.getTimeInMillis() <= completedOn.getTimeInMillis()
-							|| (!scheduledOns.isEmpty() && recurringFrom.getTimeInMillis() <= scheduledOns.last().getTimeInMillis())
-						);
+						long after = completedOn.getTimeInMillis();
+						if(!scheduledOns.isEmpty()) after = Math.max(after, scheduledOns.last().getTimeInMillis());
+						recurringFrom = ScheduleAdvance.getFirstAfter(recurring, completedOn, after);
 						break;
 					}
 				}
@@ -495,7 +796,7 @@ final public class TaskUtil {
 				firstIncomplete = recurringFrom;
 			} else {
 				if(on == null) throw new TaskException("\"on\" date must be provided for non-relative recurring tasks");
-				firstIncomplete = taskLog.getFirstIncompleteScheduledOn(on, recurring);
+				firstIncomplete = FirstIncompleteCache.getInstance(servletContext).getFirstIncompleteScheduledOn(task, taskLogVersion);
 			}
 			if(firstIncomplete.before(today)) {
 				TaskLog.Entry entry = taskLog.getMostRecentEntry(firstIncomplete);
@@ -519,27 +820,7 @@ final public class TaskUtil {
 						}
 					}
 				}
-				if(allDoBeforesCompleted) {
-					return new StatusResult(
-						StatusResult.Style.LATE,
-						"Late " + CalendarUtils.formatDate(firstIncomplete),
-						entry!=null ? entry.getComments() : null,
-						false,
-						true,
-						false,
-						firstIncomplete
-					);
-				} else {
-					return new StatusResult(
-						StatusResult.Style.LATE_WAITING_DO_AFTER,
-						"Late " + CalendarUtils.formatDate(firstIncomplete) + " waiting for \"Do Before\"",
-						entry!=null ? entry.getComments() : null,
-						false,
-						false,
-						false,
-						firstIncomplete
-					);
-				}
+				return StatusResult.late(entry!=null ? entry.getComments() : null, allDoBeforesCompleted, firstIncomplete);
 			}
 			if(firstIncomplete.getTimeInMillis() == todayMillis) {
 				TaskLog.Entry entry = taskLog.getMostRecentEntry(firstIncomplete);
@@ -563,37 +844,9 @@ final public class TaskUtil {
 						}
 					}
 				}
-				if(allDoBeforesCompleted) {
-					return new StatusResult(
-						StatusResult.Style.DUE_TODAY,
-						"Due Today",
-						entry!=null ? entry.getComments() : null,
-						false,
-						true,
-						false,
-						firstIncomplete
-					);
-				} else {
-					return new StatusResult(
-						StatusResult.Style.DUE_TODAY_WAITING_DO_AFTER,
-						"Due Today waiting for \"Do Before\"",
-						entry!=null ? entry.getComments() : null,
-						false,
-						false,
-						false,
-						firstIncomplete
-					);
-				}
+				return StatusResult.dueToday(entry!=null ? entry.getComments() : null, allDoBeforesCompleted, firstIncomplete);
 			}
-			return new StatusResult(
-				StatusResult.Style.IN_FUTURE,
-				"Waiting until " + CalendarUtils.formatDate(firstIncomplete),
-				null,
-				true,
-				false,
-				true,
-				firstIncomplete
-			);
+			return StatusResult.waitingUntil(true, firstIncomplete);
 		}
 	}
 
@@ -613,17 +866,40 @@ final public class TaskUtil {
 	}
 
 	public static Map<Task, StatusResult> getMultipleStatuses(
-		final ServletContext servletContext,
+		ServletContext servletContext,
 		HttpServletRequest request,
 		HttpServletResponse response,
 		Collection<? extends Task> tasks,
-		final Cache cache
+		Cache cache
 	) throws TaskException, ServletException, IOException {
-		int size = tasks.size();
-		if(size == 0) {
-			return Collections.emptyMap();
+		return getMultipleStatuses(
+			servletContext,
+			request,
+			response,
+			tasks,
+			cache,
+			getAsOf(cache)
+		);
+	}
+
+	/**
+	 * Gets the statuses of multiple tasks as of the given day.
+	 *
+	 * @see  #getMultipleStatuses(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.util.Collection)
+	 */
+	public static Map<Task, StatusResult> getMultipleStatuses(
+		final ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Collection<? extends Task> tasks,
+		final Cache cache,
+		final AsOf asOf
+	) throws TaskException, ServletException, IOException {
+		int size = tasks.size();
+		if(size == 0) {
+			return Collections.emptyMap();
 		} else {
-			final Map<Task, StatusResult> statusCache = getStatusCache(cache);
+			final Map<Task, StatusResult> statusCache = getStatusCache(cache, asOf);
 			if(size == 1) {
 				Task task = tasks.iterator().next();
 				return Collections.singletonMap(
@@ -634,6 +910,7 @@ final public class TaskUtil {
 						response,
 						task,
 						cache,
+						asOf,
 						statusCache
 					)
 				);
@@ -658,25 +935,21 @@ final public class TaskUtil {
 					) {
 						//System.err.println("notCachedSize = " + notCachedSize + ", doing concurrent getStatus");
 						// Concurrent implementation
+						long startNanos = System.nanoTime();
 						List<Callable<StatusResult>> concurrentTasks = new ArrayList<>(notCachedSize);
-						{
-							final HttpServletRequest threadSafeReq = new UnmodifiableCopyHttpServletRequest(request);
-							final HttpServletResponse threadSafeResp = new UnmodifiableCopyHttpServletResponse(response);
-							final TempFileContext tempFileContext = TempFileContextEE.get(request);
-							for(final Task task : notCached) {
-								concurrentTasks.add((Callable<StatusResult>) () -> {
-									HttpServletRequest subrequest = new HttpServletSubRequest(threadSafeReq);
-									HttpServletResponse subresponse = new HttpServletSubResponse(threadSafeResp, tempFileContext);
-									return getStatus(
-										servletContext,
-										subrequest,
-										subresponse,
-										task,
-										cache,
-										statusCache
-									);
-								});
-							}
+						Subrequests subrequests = new Subrequests(request, response);
+						for(final Task task : notCached) {
+							concurrentTasks.add(StatusWaits.subtask(subrequests.wrap((subrequest, subresponse) ->
+								getStatus(
+									servletContext,
+									subrequest,
+									subresponse,
+									task,
+									cache,
+									asOf,
+									statusCache
+								)
+							)));
 						}
 						List<StatusResult> concurrentResults;
 						try {
@@ -684,18 +957,7 @@ final public class TaskUtil {
 						} catch(InterruptedException e) {
 							throw new ServletException(e);
 						} catch(ExecutionException e) {
-							// Maintain expected exception types while not losing stack trace
-							// TODO: Once pragmatickm-task-model is SNAPSHOT again: ExecutionExceptions.wrapAndThrow(e, TaskException.class, TaskException::new);
-							// TODO: Compatibility implementation using initCause:
-							ExecutionExceptions.wrapAndThrow(e, TaskException.class,
-								(message, ee) -> {
-									TaskException te = new TaskException(message);
-									te.initCause(ee);
-									return te;
-								}
-							);
-							ExecutionExceptions.wrapAndThrow(e, IOException.class, IOException::new);
-							throw new ServletException(e);
+							throw wrapExecutionException(e);
 						}
 						for(int i=0; i<notCachedSize; i++) {
 							results.put(
@@ -703,8 +965,10 @@ final public class TaskUtil {
 								concurrentResults.get(i)
 							);
 						}
+						TaskMetrics.getInstance(servletContext).multipleStatusesConcurrentNanos.record(System.nanoTime() - startNanos);
 					} else {
 						// Sequential implementation
+						long startNanos = System.nanoTime();
 						for(Task task : notCached) {
 							results.put(
 								task,
@@ -714,10 +978,12 @@ final public class TaskUtil {
 									response,
 									task,
 									cache,
+									asOf,
 									statusCache
 								)
 							);
 						}
+						TaskMetrics.getInstance(servletContext).multipleStatusesSequentialNanos.record(System.nanoTime() - startNanos);
 					}
 				}
 				assert results.size() == size;
@@ -728,8 +994,8 @@ final public class TaskUtil {
 
 	/**
 	 * Finds all tasks that must be done after this task.
-	 * This requires a capture of the entire page tree
-	 * meta data to find any task that has a doBefore pointing to this task.
+	 * This is a lookup in the {@link TaskIndex}, which is built from the
+	 * entire page tree meta data once per request.
 	 */
 	public static List<Task> getDoAfters(
 		ServletContext servletContext,
@@ -737,43 +1003,13 @@ final public class TaskUtil {
 		HttpServletResponse response,
 		Task task
 	) throws ServletException, IOException {
-		final String taskId = task.getId();
-		final Page taskPage = task.getPage();
-		final List<Task> doAfters = new ArrayList<>();
-		final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-		CapturePage.traversePagesDepthFirst(
-			servletContext,
-			request,
-			response,
-			semanticCMS.getRootBook().getContentRoot(),
-			CaptureLevel.META,
-			(Page page, int depth) -> {
-				for(Element element : page.getElements()) {
-					if(element instanceof Task) {
-						Task pageTask = (Task)element;
-						for(ElementRef doBefore : pageTask.getDoBefores()) {
-							if(
-								doBefore.getPageRef().equals(taskPage.getPageRef())
-								&& doBefore.getId().equals(taskId)
-							) {
-								doAfters.add(pageTask);
-							}
-						}
-					}
-				}
-				return null;
-			},
-			(Page page) -> page.getChildRefs(),
-			(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
-			null
-		);
-		return Collections.unmodifiableList(doAfters);
+		return TaskIndex.getTaskIndex(servletContext, request, response).getDoAfters(task.getElementRef());
 	}
 
 	/**
 	 * Finds all tasks that must be done after each of the provided tasks.
-	 * This requires a capture of the entire page tree meta data
-	 * to find any task that has a doBefore pointing to each task.
+	 * This is a lookup in the {@link TaskIndex}, which is built from the
+	 * entire page tree meta data once per request.
 	 *
 	 * @return  The map of doAfters, in the same iteration order as the provided
 	 *          tasks.  If no doAfters for a given task, will contain an empty list.
@@ -794,67 +1030,19 @@ final public class TaskUtil {
 				getDoAfters(servletContext, request, response, task)
 			);
 		} else {
-			// Fill with empty lists, this sets the iteration order, too
+			TaskIndex taskIndex = TaskIndex.getTaskIndex(servletContext, request, response);
 			final Map<Task, List<Task>> results = AoCollections.newLinkedHashMap(size);
-			// Build map from ElementRef back to Task, for fast lookup during traversal
-			final Map<ElementRef, Task> tasksByElementRef = AoCollections.newHashMap(size);
-			{
-				List<Task> emptyList = Collections.emptyList();
-				for(Task task : tasks) {
-					if(results.put(task, emptyList) != null) {
-						throw new AssertionError();
-					}
-					if(tasksByElementRef.put(task.getElementRef(), task) != null) {
-						throw new AssertionError();
-					}
+			for(Task task : tasks) {
+				List<Task> doAfters = taskIndex.getDoAfters(task.getElementRef());
+				if(
+					!doAfters.isEmpty()
+					&& task.getPage().getGeneratedIds().contains(task.getId())
+				) {
+					throw new ServletException(new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + task));
+				}
+				if(results.put(task, doAfters) != null) {
+					throw new AssertionError();
 				}
-			}
-			final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-			CapturePage.traversePagesDepthFirst(
-				servletContext,
-				request,
-				response,
-				semanticCMS.getRootBook().getContentRoot(),
-				CaptureLevel.META,
-				(Page page, int depth) -> {
-					try {
-						for(Element element : page.getElements()) {
-							if(element instanceof Task) {
-								Task pageTask = (Task)element;
-								for(ElementRef doBeforeRef : pageTask.getDoBefores()) {
-									Task doBefore = tasksByElementRef.get(doBeforeRef);
-									if(doBefore != null) {
-										if(doBefore.getPage().getGeneratedIds().contains(doBefore.getId())) throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + doBefore);
-										List<Task> doAfters = results.get(doBefore);
-										int doAftersSize = doAfters.size();
-										if(doAftersSize == 0) {
-											results.put(doBefore, Collections.singletonList(pageTask));
-										} else {
-											if(doAftersSize == 1) {
-												Task first = doAfters.get(0);
-												doAfters = new ArrayList<>();
-												doAfters.add(first);
-												results.put(doBefore, doAfters);
-											}
-											doAfters.add(pageTask);
-										}
-									}
-								}
-							}
-						}
-						return null;
-					} catch(TaskException e) {
-						throw new ServletException(e);
-					}
-				},
-				(Page page) -> page.getChildRefs(),
-				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
-				null
-			);
-			// Wrap any with size of 2 or more with unmodifiable, 0 and 1 already are unmodifiable
-			for(Map.Entry<Task, List<Task>> entry : results.entrySet()) {
-				List<Task> doAfters = entry.getValue();
-				if(doAfters.size() > 1) entry.setValue(Collections.unmodifiableList(doAfters));
 			}
 			// Make entire map unmodifiable
 			return Collections.unmodifiableMap(results);
@@ -881,62 +1069,168 @@ final public class TaskUtil {
 		return EnumSet.allOf(User.class);
 	}
 
+	/**
+	 * A task being visited while computing effective priorities.
+	 */
+	private static class EffectivePriorityFrame {
+
+		private final Task task;
+		private final List<Task> doAfters;
+		private int nextDoAfter;
+		private Priority effective;
+
+		private EffectivePriorityFrame(Task task, List<Task> doAfters, Priority priority) {
+			this.task = task;
+			this.doAfters = doAfters;
+			this.effective = priority;
+		}
+	}
+
+	private static final String EFFECTIVE_PRIORITIES_CACHE_KEY = TaskUtil.class.getName() + ".getEffectivePriorities";
+
+	/**
+	 * Gets the per-request cache of effective priorities for the given time.
+	 */
+	private static Map<Task, Priority> getEffectivePrioritiesCache(Cache cache, AsOf asOf) {
+		@SuppressWarnings("unchecked")
+		Map<AsOf, Map<Task, Priority>> effectivePrioritiesByTime = cache.getAttribute(
+			EFFECTIVE_PRIORITIES_CACHE_KEY,
+			Map.class,
+			() -> cache.newMap()
+		);
+		return effectivePrioritiesByTime.computeIfAbsent(asOf, k -> cache.newMap());
+	}
+
+	/**
+	 * Finds the maximum priority of this task and all blocked tasks that will
+	 * be done after it, transitively.
+	 * <p>
+	 * The doAfters are visited iteratively, depth-first, and each task's
+	 * effective priority is computed after all of its doAfters (reverse
+	 * topological order).  Results are cached for the rest of the request.
+	 * </p>
+	 *
+	 * @throws  TaskException  when the blocked doAfters form a cycle
+	 */
 	private static Priority getEffectivePriority(
 		ServletContext servletContext,
 		HttpServletRequest request,
 		HttpServletResponse response,
 		Cache cache,
+		AsOf asOf,
 		Map<Task, StatusResult> statusCache,
-		long now,
+		TaskIndex taskIndex,
 		Task task,
 		StatusResult status,
-		Map<Task, List<Task>> doAftersByTask,
 		Map<Task, Priority> effectivePriorities
 	) throws TaskException, ServletException, IOException {
 		Priority cached = effectivePriorities.get(task);
 		if(cached != null) return cached;
-		// Find the maximum priority of this task and all that will be done after it
-		Priority effective = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-		if(effective != Priority.MAX_PRIORITY) {
-			List<Task> doAfters = doAftersByTask.get(task);
-			if(doAfters != null) {
-				for(Task doAfter : doAfters) {
-					StatusResult doAfterStatus = getStatus(
-						servletContext,
-						request,
-						response,
-						doAfter,
-						cache,
-						statusCache
-					);
-					if(
-						!doAfterStatus.isCompletedSchedule()
-						&& !doAfterStatus.isReadySchedule()
-						&& !doAfterStatus.isFutureSchedule()
-					) {
-						Priority inherited = getEffectivePriority(
-							servletContext,
-							request,
-							response,
-							cache,
-							statusCache,
-							now,
-							doAfter,
-							doAfterStatus,
-							doAftersByTask,
-							effectivePriorities
-						);
-						if(inherited.compareTo(effective) > 0) {
-							effective = inherited;
-							if(effective == Priority.MAX_PRIORITY) break;
+		List<EffectivePriorityFrame> stack = new ArrayList<>();
+		Map<Task, EffectivePriorityFrame> onStack = new HashMap<>();
+		EffectivePriorityFrame start = newEffectivePriorityFrame(asOf.getNow(), taskIndex, task, status);
+		stack.add(start);
+		onStack.put(task, start);
+		while(true) {
+			EffectivePriorityFrame frame = stack.get(stack.size() - 1);
+			if(
+				frame.effective != Priority.MAX_PRIORITY
+				&& frame.nextDoAfter < frame.doAfters.size()
+			) {
+				Task doAfter = frame.doAfters.get(frame.nextDoAfter++);
+				StatusResult doAfterStatus = getStatus(
+					servletContext,
+					request,
+					response,
+					doAfter,
+					cache,
+					asOf,
+					statusCache
+				);
+				if(
+					!doAfterStatus.isCompletedSchedule()
+					&& !doAfterStatus.isReadySchedule()
+					&& !doAfterStatus.isFutureSchedule()
+				) {
+					Priority inherited = effectivePriorities.get(doAfter);
+					if(inherited != null) {
+						if(inherited.compareTo(frame.effective) > 0) frame.effective = inherited;
+					} else if(onStack.containsKey(doAfter)) {
+						// Report the tasks in the cycle
+						StringBuilder message = new StringBuilder("Cycle detected in \"Do Before\" tasks: ");
+						for(int i = stack.indexOf(onStack.get(doAfter)), size = stack.size(); i < size; i++) {
+							message.append(stack.get(i).task).append(" -> ");
 						}
+						message.append(doAfter);
+						throw new TaskException(message.toString());
+					} else {
+						EffectivePriorityFrame doAfterFrame = newEffectivePriorityFrame(asOf.getNow(), taskIndex, doAfter, doAfterStatus);
+						stack.add(doAfterFrame);
+						onStack.put(doAfter, doAfterFrame);
 					}
 				}
+			} else {
+				// All doAfters resolved
+				stack.remove(stack.size() - 1);
+				onStack.remove(frame.task);
+				effectivePriorities.put(frame.task, frame.effective);
+				if(stack.isEmpty()) return frame.effective;
+				EffectivePriorityFrame parent = stack.get(stack.size() - 1);
+				if(frame.effective.compareTo(parent.effective) > 0) parent.effective = frame.effective;
 			}
 		}
-		// Cache result
-		effectivePriorities.put(task, effective);
-		return effective;
+	}
+
+	private static EffectivePriorityFrame newEffectivePriorityFrame(
+		long now,
+		TaskIndex taskIndex,
+		Task task,
+		StatusResult status
+	) throws TaskException {
+		Priority priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
+		List<Task> doAfters;
+		if(priority == Priority.MAX_PRIORITY) {
+			// Nothing to inherit
+			doAfters = Collections.emptyList();
+		} else {
+			doAfters = taskIndex.getDoAfters(task.getElementRef());
+			if(
+				!doAfters.isEmpty()
+				&& task.getPage().getGeneratedIds().contains(task.getId())
+			) {
+				throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + task);
+			}
+		}
+		return new EffectivePriorityFrame(task, doAfters, priority);
+	}
+
+	/**
+	 * Gets the effective priority of a task, which is the maximum priority of the
+	 * task and all blocked tasks that will be done after it.
+	 *
+	 * @throws  TaskException  when the blocked doAfters form a cycle
+	 */
+	public static Priority getEffectivePriority(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Task task
+	) throws TaskException, ServletException, IOException {
+		Cache cache = CacheFilter.getCache(request);
+		AsOf asOf = getAsOf(cache);
+		Map<Task, StatusResult> statusCache = getStatusCache(cache, asOf);
+		return getEffectivePriority(
+			servletContext,
+			request,
+			response,
+			cache,
+			asOf,
+			statusCache,
+			TaskIndex.getTaskIndex(servletContext, request, response),
+			task,
+			getStatus(servletContext, request, response, task, cache, asOf, statusCache),
+			getEffectivePrioritiesCache(cache, asOf)
+		);
 	}
 
 	public static List<Task> prioritizeTasks(
@@ -946,118 +1240,132 @@ final public class TaskUtil {
 		Collection<? extends Task> tasks,
 		final boolean dateFirst
 	) throws TaskException, ServletException, IOException {
-		final long now = System.currentTimeMillis();
+		if(tasks.size() <= 1) return Collections.unmodifiableList(new ArrayList<>(tasks));
 		final Cache cache = CacheFilter.getCache(request);
-		final Map<Task, StatusResult> statusCache = getStatusCache(cache);
+		final AsOf asOf = getAsOf(cache);
+		final Map<Task, StatusResult> statusCache = getStatusCache(cache, asOf);
 		// Priority inheritance
-		List<Task> allTasks = getAllTasks(
-			servletContext,
-			request,
-			response,
-			CapturePage.capturePage(
+		TaskIndex taskIndex = TaskIndex.getTaskIndex(servletContext, request, response);
+		Map<Task, Priority> effectivePriorities = getEffectivePrioritiesCache(cache, asOf);
+		// Compute the sort key components once per task
+		List<Task> taskList = new ArrayList<>(tasks);
+		int size = taskList.size();
+		long[] dates = new long[size];
+		boolean[] hasDates = new boolean[size];
+		int[] priorityOrdinals = new int[size];
+		for(int i = 0; i < size; i++) {
+			Task task = taskList.get(i);
+			StatusResult status = getStatus(servletContext, request, response, task, cache, asOf, statusCache);
+			Calendar date = status.getDate();
+			if(date != null) {
+				hasDates[i] = true;
+				dates[i] = date.getTimeInMillis();
+			}
+			priorityOrdinals[i] = getEffectivePriority(
 				servletContext,
 				request,
 				response,
-				SemanticCMS.getInstance(servletContext).getRootBook().getContentRoot(),
-				CaptureLevel.META
-			),
-			null
-		);
-		// Index tasks by page,id
-		Map<ElementRef, Task> tasksByKey = AoCollections.newHashMap(allTasks.size());
-		for(Task task : allTasks) {
-			if(tasksByKey.put(task.getElementRef(), task) != null) {
-				throw new AssertionError("Duplicate task (page, id)");
-			}
+				cache,
+				asOf,
+				statusCache,
+				taskIndex,
+				task,
+				status,
+				effectivePriorities
+			).ordinal();
 		}
-		// Invert dependency DAG for fast lookups for priority inheritance
-		final Map<Task, List<Task>> doAftersByTask = AoCollections.newLinkedHashMap(allTasks.size());
-		for(Task task : allTasks) {
-			for(ElementRef doBeforeRef : task.getDoBefores()) {
-				Task doBefore = tasksByKey.get(doBeforeRef);
-				if(doBefore==null) throw new AssertionError("Task not found: " + doBeforeRef);
-				if(doBefore.getPage().getGeneratedIds().contains(doBefore.getId())) throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + doBefore);
-				List<Task> doAfters = doAftersByTask.get(doBefore);
-				if(doAfters == null) {
-					doAfters = new ArrayList<>();
-					doAftersByTask.put(doBefore, doAfters);
+		return Collections.unmodifiableList(sortTasks(taskList, dates, hasDates, priorityOrdinals, dateFirst));
+	}
+
+	/**
+	 * Inputs at least this size are sorted with {@link Arrays#parallelSort(long[])}.
+	 */
+	private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+	private static final int PRIORITY_BITS = bitsFor(Priority.values().length - 1);
+
+	/**
+	 * Gets the number of bits required to store values from zero through {@code max}, inclusive.
+	 */
+	private static int bitsFor(int max) {
+		return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(max));
+	}
+
+	/**
+	 * Sorts tasks by precomputed keys, in the same order as comparing, in turn:
+	 * <ol>
+	 * <li>Scheduled before unscheduled (when date first)</li>
+	 * <li>Earlier date before later date (when date first)</li>
+	 * <li>Higher effective priority before lower</li>
+	 * <li>Scheduled before unscheduled (when priority first)</li>
+	 * <li>Earlier date before later date (when priority first)</li>
+	 * <li>Original order</li>
+	 * </ol>
+	 * <p>
+	 * Each task is reduced to a single {@code long}: the dates are replaced by
+	 * their rank among the distinct dates, with unscheduled ranked after all
+	 * dates, and packed with the inverted priority ordinal and the original index.
+	 * The packed keys are unique, so a primitive sort gives the same ordering as
+	 * a stable sort with the original comparator.
+	 * </p>
+	 */
+	private static List<Task> sortTasks(
+		List<Task> tasks,
+		long[] dates,
+		boolean[] hasDates,
+		int[] priorityOrdinals,
+		boolean dateFirst
+	) {
+		final int size = tasks.size();
+		if(size <= 1) return tasks;
+		// Rank distinct dates
+		long[] distinctDates;
+		{
+			long[] sortedDates = new long[size];
+			int count = 0;
+			for(int i = 0; i < size; i++) {
+				if(hasDates[i]) sortedDates[count++] = dates[i];
+			}
+			Arrays.sort(sortedDates, 0, count);
+			int distinct = 0;
+			for(int i = 0; i < count; i++) {
+				if(distinct == 0 || sortedDates[i] != sortedDates[distinct - 1]) {
+					sortedDates[distinct++] = sortedDates[i];
 				}
-				doAfters.add(task);
 			}
+			distinctDates = Arrays.copyOf(sortedDates, distinct);
 		}
-		// Caches the effective priorities for tasks being prioritized or any other resolved in processing
-		final Map<Task, Priority> effectivePriorities = new HashMap<>();
-		// Build new list and sort
-		List<Task> sortedTasks = new ArrayList<>(tasks);
-		Collections.sort(
-			sortedTasks,
-			new Comparator<Task>() {
-				private int dateDiff(Task t1, Task t2) throws TaskException, ServletException, IOException {
-					// Sort by scheduled or unscheduled
-					StatusResult status1 = getStatus(servletContext, request, response, t1, cache, statusCache);
-					StatusResult status2 = getStatus(servletContext, request, response, t2, cache, statusCache);
-					Calendar date1 = status1.getDate();
-					Calendar date2 = status2.getDate();
-					int diff = Boolean.compare(date2!=null, date1!=null);
-					if(diff!=0) return diff;
-					// Then sort by date (if have date in both statuses)
-					if(date1!=null && date2!=null) {
-						diff = date1.compareTo(date2);
-						if(diff!=0) return diff;
-					}
-					// Dates equal
-					return 0;
-				}
-
-				@Override
-				public int compare(Task t1, Task t2) {
-					try {
-						// Sort by date (when date first)
-						if(dateFirst) {
-							int diff = dateDiff(t1, t2);
-							if(diff!=0) return diff;
-						}
-						// Sort by priority (including priority inheritance)
-						Priority priority1 = getEffectivePriority(
-							servletContext,
-							request,
-							response,
-							cache,
-							statusCache,
-							now,
-							t1,
-							getStatus(servletContext, request, response, t1, cache, statusCache),
-							doAftersByTask,
-							effectivePriorities
-						);
-						Priority priority2 = getEffectivePriority(
-							servletContext,
-							request,
-							response,
-							cache,
-							statusCache,
-							now,
-							t2,
-							getStatus(servletContext, request, response, t2, cache, statusCache),
-							doAftersByTask,
-							effectivePriorities
-						);
-						int diff = priority2.compareTo(priority1);
-						if(diff!=0) return diff;
-						// Sort by date (when priority first)
-						if(!dateFirst) {
-							diff = dateDiff(t1, t2);
-							if(diff!=0) return diff;
-						}
-						// Equal
-						return 0;
-					} catch(TaskException | ServletException | IOException e) {
-						throw new WrappedException(e);
-					}
-				}
+		final int unscheduledRank = distinctDates.length;
+		final int indexBits = bitsFor(size - 1);
+		final int rankBits = bitsFor(unscheduledRank);
+		if(indexBits + rankBits + PRIORITY_BITS >= Long.SIZE) {
+			throw new IllegalArgumentException("Too many tasks to prioritize: " + size);
+		}
+		final int maxPriorityOrdinal = Priority.values().length - 1;
+		long[] keys = new long[size];
+		for(int i = 0; i < size; i++) {
+			long rank = hasDates[i] ? Arrays.binarySearch(distinctDates, dates[i]) : unscheduledRank;
+			assert rank >= 0;
+			long invertedPriority = maxPriorityOrdinal - priorityOrdinals[i];
+			long key;
+			if(dateFirst) {
+				key = (rank << PRIORITY_BITS) | invertedPriority;
+			} else {
+				key = (invertedPriority << rankBits) | rank;
 			}
-		);
-		return Collections.unmodifiableList(sortedTasks);
+			keys[i] = (key << indexBits) | i;
+		}
+		if(size >= PARALLEL_SORT_THRESHOLD) {
+			Arrays.parallelSort(keys);
+		} else {
+			Arrays.sort(keys);
+		}
+		final long indexMask = (1L << indexBits) - 1;
+		List<Task> sortedTasks = new ArrayList<>(size);
+		for(long key : keys) {
+			sortedTasks.add(tasks.get((int)(key & indexMask)));
+		}
+		return sortedTasks;
 	}
 
 	private static <V> Map<PageUserKey, V> getPageUserCache(
@@ -1081,417 +1389,651 @@ final public class TaskUtil {
 
 	private static final String ALL_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getAllTasks";
 
-	public static List<Task> getAllTasks(
+	/**
+	 * A page and the subtrees of its children in accessible books.  The tasks
+	 * are not copied from the children, but are only concatenated by
+	 * {@link #getTasks()}.
+	 */
+	private static class Subtree {
+
+		private final PageRef pageRef;
+
+		/**
+		 * The tasks directly on the page.
+		 */
+		private final List<Task> pageTasks;
+
+		private final List<Subtree> children;
+
+		private Subtree(PageRef pageRef, List<Task> pageTasks, List<Subtree> children) {
+			this.pageRef = pageRef;
+			this.pageTasks = pageTasks;
+			this.children = children;
+		}
+
+		/**
+		 * Gets the tasks of the page and all its descendants, in the same order
+		 * as a depth-first traversal from the page.  Pages reachable more than
+		 * once are only included the first time.
+		 */
+		private List<Task> getTasks() {
+			List<Task> tasks = new ArrayList<>();
+			Set<PageRef> seen = new HashSet<>();
+			Deque<Subtree> pending = new ArrayDeque<>();
+			pending.push(this);
+			while(!pending.isEmpty()) {
+				Subtree subtree = pending.pop();
+				if(seen.add(subtree.pageRef)) {
+					tasks.addAll(subtree.pageTasks);
+					// Pushed in reverse, so the first child is visited next
+					for(int i = subtree.children.size() - 1; i >= 0; i--) {
+						pending.push(subtree.children.get(i));
+					}
+				}
+			}
+			return tasks;
+		}
+	}
+
+	/**
+	 * The context parameter that enables capturing the page tree concurrently
+	 * before the depth-first traversals of the task lists.  Defaults to {@code false}.
+	 */
+	public static final String CONCURRENT_TRAVERSAL_INIT_PARAM = "com.pragmatickm.task.renderer.html.concurrentTraversal";
+
+	private static boolean isConcurrentTraversal(ServletContext servletContext) {
+		String value = servletContext.getInitParameter(CONCURRENT_TRAVERSAL_INIT_PARAM);
+		return value != null && Boolean.parseBoolean(value.trim());
+	}
+
+	/**
+	 * When enabled by {@link #CONCURRENT_TRAVERSAL_INIT_PARAM} and concurrent
+	 * subrequests are allowed, captures the given page and its descendants in
+	 * accessible books in any order, using the SemanticCMS executors.
+	 * <p>
+	 * The captured pages are cached for the request, so the depth-first
+	 * traversal that follows only visits pages already captured, and its
+	 * results are in the same order as without this prefetch.
+	 * </p>
+	 *
+	 * @param  handler  Called for each page, possibly concurrently, to collect per-page results
+	 *                  or {@code null} when only capturing.
+	 */
+	static void prefetchPages(
 		ServletContext servletContext,
 		HttpServletRequest request,
 		HttpServletResponse response,
-		Page rootPage,
-		final User user
-	) throws IOException, ServletException {
-		PageUserKey cacheKey = new PageUserKey(rootPage, user);
-		Map<PageUserKey, List<Task>> cache = getPageUserCache(CacheFilter.getCache(request), ALL_TASKS_CACHE_KEY);
-		List<Task> results = cache.get(cacheKey);
-		if(results == null) {
-			final List<Task> allTasks = new ArrayList<>();
+		PageRef rootPage,
+		CapturePage.PageHandler<?> handler
+	) throws ServletException, IOException {
+		if(
+			isConcurrentTraversal(servletContext)
+			&& ConcurrencyCoordinator.useConcurrentSubrequests(request)
+		) {
 			final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-			CapturePage.traversePagesDepthFirst(
+			CapturePage.traversePagesAnyOrder(
 				servletContext,
 				request,
 				response,
 				rootPage,
 				CaptureLevel.META,
-				(Page page, int depth) -> {
-					for(Element element : page.getElements()) {
-						if(element instanceof Task) {
-							Task task = (Task)element;
-							if(
-								user == null
-								|| task.getAssignedTo(user) != null
-							) allTasks.add(task);
-						}
-					}
+				(Page page) -> {
+					if(handler != null) handler.handlePage(page);
+					// Continue to all pages
 					return null;
 				},
 				(Page page) -> page.getChildRefs(),
 				// Child in accessible book
-				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
-				null
+				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible()
 			);
-			results = Collections.unmodifiableList(allTasks);
-			cache.put(cacheKey, results);
 		}
-		return results;
 	}
 
-	private static final String HAS_ASSIGNED_TASK_CACHE_KEY = TaskUtil.class.getName() + ".hasAssignedTask";
+	private static final String SUBTREES_CACHE_KEY = TaskUtil.class.getName() + ".getSubtree.subtrees";
 
-	public static boolean hasAssignedTask(
-		final ServletContext servletContext,
-		final HttpServletRequest request,
-		final HttpServletResponse response,
-		Page page,
-		final User user
+	private static final String PAGE_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getSubtree.pageTasks";
+
+	/**
+	 * Gets the tasks directly on a page, caching per request.
+	 */
+	private static List<Task> getPageTasks(Map<Page, List<Task>> pageTasks, Page page) {
+		List<Task> tasks = pageTasks.get(page);
+		if(tasks == null) {
+			for(Element element : page.getElements()) {
+				if(element instanceof Task) {
+					if(tasks == null) tasks = new ArrayList<>();
+					tasks.add((Task)element);
+				}
+			}
+			tasks = tasks == null ? Collections.emptyList() : Collections.unmodifiableList(tasks);
+			pageTasks.put(page, tasks);
+		}
+		return tasks;
+	}
+
+	/**
+	 * Gets the subtree of a page, referencing the already-built subtrees of its children.
+	 * Subtrees are cached per request, so nested pages in the same request share the
+	 * subtrees of their common descendants, and nothing is copied per level.
+	 * <p>
+	 * When the page tree has no cycles, concatenating the tasks of the subtrees,
+	 * skipping pages already included, gives the same order as a depth-first traversal.
+	 * This does not hold through a cycle, so {@code null} is returned when a cycle is
+	 * found, and the caller must use a traversal instead.
+	 * </p>
+	 *
+	 * @param  onStack  The pages whose subtrees are currently being built
+	 * @param  pagesVisited  Incremented for each page aggregated
+	 *
+	 * @return  The subtree or {@code null} when the subtree contains a cycle
+	 */
+	private static Subtree getSubtree(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		SemanticCMS semanticCMS,
+		Cache cache,
+		Map<PageRef, Subtree> subtrees,
+		Map<Page, List<Task>> pageTasks,
+		Set<PageRef> onStack,
+		AtomicInteger pagesVisited,
+		Page page
 	) throws ServletException, IOException {
-		PageUserKey cacheKey = new PageUserKey(page, user);
-		final Cache cache = CacheFilter.getCache(request);
-		final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-		Map<PageUserKey, Boolean> hasAssignedTaskCache = getPageUserCache(cache, HAS_ASSIGNED_TASK_CACHE_KEY);
-		Boolean result = hasAssignedTaskCache.get(cacheKey);
-		if(result == null) {
-			final long now = System.currentTimeMillis();
-			final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-			result = CapturePage.traversePagesAnyOrder(
-				servletContext,
-				request,
-				response,
-				page,
-				CaptureLevel.META,
-				(Page p) -> {
-					try {
-						for(Element element : p.getElements()) {
-							if(element instanceof Task) {
-								Task task = (Task)element;
-								TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-								if(
-									user == null
-									|| assignedTo != null
-								) {
-									StatusResult status = getStatus(
-										servletContext,
-										request,
-										response,
-										task,
-										cache,
-										statusCache
-									);
-									Priority priority = null;
-									// getReadyTasks logic
-									if(
-										!status.isCompletedSchedule()
-										&& status.isReadySchedule()
-									) {
-										priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-										if(priority != Priority.FUTURE) {
-											if(
-												status.getDate() != null
-												&& assignedTo != null
-												&& assignedTo.getAfter().getCount() > 0
-											) {
-												// assignedTo "after"
-												Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-												assignedTo.getAfter().offset(effectiveDate);
-												if(now >= effectiveDate.getTimeInMillis()) {
-													return true;
-												}
-											} else {
-												// No time offset
-												return true;
-											}
-										}
-									}
-									// getBlockedTasks logic
-									if(
-										!status.isCompletedSchedule()
-										&& !status.isReadySchedule()
-										&& !status.isFutureSchedule()
-									) {
-										if(priority == null) {
-											priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-										}
-										if(priority != Priority.FUTURE) {
-											if(
-												status.getDate() != null
-												&& assignedTo != null
-												&& assignedTo.getAfter().getCount() > 0
-											) {
-												// assignedTo "after"
-												Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-												assignedTo.getAfter().offset(effectiveDate);
-												if(now >= effectiveDate.getTimeInMillis()) {
-													return true;
-												}
-											} else {
-												// No time offset
-												return true;
-											}
-										}
-									}
-									// getFutureTasks logic
-									if(
-										// When assignedTo "after" is non-zero, hide from this user
-										assignedTo == null
-										|| assignedTo.getAfter().getCount() == 0
-									) {
-										boolean future = status.isFutureSchedule();
-										if(!future) {
-											if(priority == null) {
-												priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-											}
-											future = priority == Priority.FUTURE;
-										}
-										if(future) {
-											return true;
-										}
-									}
-								}
-							}
-						}
-						return null;
-					} catch(TaskException e) {
-						throw new ServletException(e);
-					}
-				},
-				(Page p) -> p.getChildRefs(),
+		PageRef pageRef = page.getPageRef();
+		Subtree subtree = subtrees.get(pageRef);
+		if(subtree == null) {
+			pagesVisited.incrementAndGet();
+			onStack.add(pageRef);
+			List<Subtree> children = new ArrayList<>();
+			for(PageRef childRef : page.getChildRefs()) {
 				// Child in accessible book
-				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible()
-			) != null;
-			hasAssignedTaskCache.put(cacheKey, result);
+				if(semanticCMS.getBook(childRef.getBookRef()).isAccessible()) {
+					if(onStack.contains(childRef)) return null;
+					Subtree childSubtree = subtrees.get(childRef);
+					if(childSubtree == null) {
+						childSubtree = getSubtree(
+							servletContext,
+							request,
+							response,
+							semanticCMS,
+							cache,
+							subtrees,
+							pageTasks,
+							onStack,
+							pagesVisited,
+							CapturePage.capturePage(
+								servletContext,
+								request,
+								response,
+								childRef,
+								CaptureLevel.META,
+								cache
+							)
+						);
+						if(childSubtree == null) return null;
+					}
+					children.add(childSubtree);
+				}
+			}
+			onStack.remove(pageRef);
+			subtree = new Subtree(
+				pageRef,
+				getPageTasks(pageTasks, page),
+				AoCollections.optimalUnmodifiableList(children)
+			);
+			subtrees.put(pageRef, subtree);
 		}
-		return result;
+		return subtree;
 	}
 
-	private static final String GET_READY_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getReadyTasks";
-
-	public static List<Task> getReadyTasks(
-		final ServletContext servletContext,
-		final HttpServletRequest request,
-		final HttpServletResponse response,
+	/**
+	 * Gets all tasks in the given page and its descendants in accessible books,
+	 * in depth-first order.
+	 * <p>
+	 * The tasks of each page's subtree are aggregated from the subtrees of its
+	 * children and cached for the request, so requests for nested pages only
+	 * visit each page once.
+	 * </p>
+	 *
+	 * @param  user  The user the tasks are assigned to or {@code null} for all tasks
+	 */
+	public static List<Task> getAllTasks(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
 		Page rootPage,
 		final User user
 	) throws IOException, ServletException {
 		PageUserKey cacheKey = new PageUserKey(rootPage, user);
 		final Cache cache = CacheFilter.getCache(request);
-		final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-		Map<PageUserKey, List<Task>> getReadyTasksCache = getPageUserCache(cache, GET_READY_TASKS_CACHE_KEY);
-		List<Task> results = getReadyTasksCache.get(cacheKey);
+		Map<PageUserKey, List<Task>> allTasksCache = getPageUserCache(cache, ALL_TASKS_CACHE_KEY);
+		List<Task> results = allTasksCache.get(cacheKey);
 		if(results == null) {
-			final long now = System.currentTimeMillis();
-			final List<Task> readyTasks = new ArrayList<>();
+			final AtomicInteger pagesVisited = new AtomicInteger();
 			final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-			CapturePage.traversePagesDepthFirst(
+			TaskEvents.Traversal event = new TaskEvents.Traversal();
+			event.begin();
+			@SuppressWarnings("unchecked")
+			Map<PageRef, Subtree> subtrees = cache.getAttribute(
+				SUBTREES_CACHE_KEY,
+				Map.class,
+				() -> cache.newMap()
+			);
+			@SuppressWarnings("unchecked")
+			Map<Page, List<Task>> pageTasks = cache.getAttribute(
+				PAGE_TASKS_CACHE_KEY,
+				Map.class,
+				() -> cache.newMap()
+			);
+			if(!subtrees.containsKey(rootPage.getPageRef())) {
+				prefetchPages(
+					servletContext,
+					request,
+					response,
+					rootPage.getPageRef(),
+					(Page page) -> getPageTasks(pageTasks, page)
+				);
+			}
+			Subtree subtree = getSubtree(
 				servletContext,
 				request,
 				response,
-				rootPage,
-				CaptureLevel.META,
-				(Page page, int depth) -> {
-					try {
-						for(Element element : page.getElements()) {
-							if(element instanceof Task) {
-								Task task = (Task)element;
-								TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-								if(
-									user == null
-									|| assignedTo != null
-								) {
-									StatusResult status = getStatus(
-										servletContext,
-										request,
-										response,
-										task,
-										cache,
-										statusCache
-									);
-									if(
-										!status.isCompletedSchedule()
-										&& status.isReadySchedule()
-									) {
-										Priority priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-										if(priority != Priority.FUTURE) {
-											if(
-												status.getDate() != null
-												&& assignedTo != null
-												&& assignedTo.getAfter().getCount() > 0
-											) {
-												// assignedTo "after"
-												Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-												assignedTo.getAfter().offset(effectiveDate);
-												if(now >= effectiveDate.getTimeInMillis()) {
-													readyTasks.add(task);
-												}
-											} else {
-												// No time offset
-												readyTasks.add(task);
-											}
-										}
-									}
-								}
-							}
+				semanticCMS,
+				cache,
+				subtrees,
+				pageTasks,
+				new HashSet<>(),
+				pagesVisited,
+				rootPage
+			);
+			final List<Task> allTasks;
+			if(subtree != null) {
+				List<Task> subtreeTasks = subtree.getTasks();
+				if(user == null) {
+					allTasks = subtreeTasks;
+				} else {
+					allTasks = new ArrayList<>();
+					long userMask = TaskAssignments.getMask(user);
+					for(Task task : subtreeTasks) {
+						if(TaskAssignments.getAssignments(cache, task).isAssignedToAny(userMask)) allTasks.add(task);
+					}
+				}
+			} else {
+				// Cycle in page tree, traverse instead
+				allTasks = new ArrayList<>();
+				CapturePage.traversePagesDepthFirst(
+					servletContext,
+					request,
+					response,
+					rootPage,
+					CaptureLevel.META,
+					(Page page, int depth) -> {
+						pagesVisited.incrementAndGet();
+						for(Task task : getPageTasks(pageTasks, page)) {
+							if(
+								user == null
+								|| TaskAssignments.getAssignments(cache, task).isAssignedTo(user)
+							) allTasks.add(task);
 						}
 						return null;
-					} catch(TaskException e) {
-						throw new ServletException(e);
-					}
-				},
-				(Page page) -> page.getChildRefs(),
-				// Child in accessible book
-				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
-				null
-			);
-			results = Collections.unmodifiableList(readyTasks);
-			getReadyTasksCache.put(cacheKey, results);
+					},
+					(Page page) -> page.getChildRefs(),
+					// Child in accessible book
+					(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
+					null
+				);
+			}
+			event.finish("getAllTasks", rootPage.getPageRef(), pagesVisited.get());
+			TaskMetrics.getInstance(servletContext).allTasksPagesVisited.record(pagesVisited.get());
+			results = Collections.unmodifiableList(allTasks);
+			allTasksCache.put(cacheKey, results);
 		}
 		return results;
 	}
 
-	private static final String GET_BLOCKED_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getBlockedTasks";
+	/**
+	 * Sorts a task into the ready, blocked, or future tasks for a user.
+	 * The future tasks are checked independently, so a task with a status both
+	 * ready and in the future is added to both the ready and future tasks.
+	 *
+	 * @param  after  The "after" offset of the assignment of the task to the user or {@code null} when
+	 *                 there is no user or the offset is zero.
+	 */
+	private static void classifyTask(
+		long now,
+		Task task,
+		TaskAssignment.After after,
+		StatusResult status,
+		List<Task> readyTasks,
+		List<Task> blockedTasks,
+		List<Task> futureTasks
+	) {
+		boolean completed = status.isCompletedSchedule();
+		boolean ready = status.isReadySchedule();
+		boolean future = status.isFutureSchedule();
+		Priority priority = null;
+		if(!completed && (ready || !future)) {
+			// getReadyTasks and getBlockedTasks logic
+			priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
+			if(priority != Priority.FUTURE) {
+				boolean visible;
+				if(
+					status.getDate() != null
+					&& after != null
+				) {
+					// assignedTo "after"
+					Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
+					after.offset(effectiveDate);
+					visible = now >= effectiveDate.getTimeInMillis();
+				} else {
+					// No time offset
+					visible = true;
+				}
+				if(visible) {
+					if(ready) {
+						readyTasks.add(task);
+					} else {
+						blockedTasks.add(task);
+					}
+				}
+			}
+		}
+		// getFutureTasks logic
+		if(
+			// When assignedTo "after" is non-zero, hide from this user
+			after == null
+		) {
+			if(!future) {
+				if(priority == null) {
+					priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
+				}
+				future = priority == Priority.FUTURE;
+			}
+			if(future) {
+				futureTasks.add(task);
+			}
+		}
+	}
 
-	public static List<Task> getBlockedTasks(
+	private static final String GET_TASK_PARTITION_CACHE_KEY = TaskUtil.class.getName() + ".getTaskPartition";
+
+	/**
+	 * The user mask that includes tasks regardless of assignment.
+	 */
+	private static final long NO_USER_FILTER = -1L;
+
+	/**
+	 * Sorts all tasks under the given page into ready, blocked, and future tasks,
+	 * in a single traversal of the page tree.  The status of each task is
+	 * computed once, and each task is classified only for the users it is
+	 * assigned to.
+	 *
+	 * @param  userMask  The users to partition for, or {@link #NO_USER_FILTER}
+	 *                   to partition all tasks regardless of assignment.
+	 *
+	 * @return  When {@link #NO_USER_FILTER}, a single partition.  Otherwise, the
+	 *          partitions by user ordinal, {@code null} for users not in the mask.
+	 */
+	private static TaskPartition[] partitionTasks(
 		final ServletContext servletContext,
 		final HttpServletRequest request,
 		final HttpServletResponse response,
 		Page rootPage,
-		final User user
+		final long userMask,
+		String operation
 	) throws IOException, ServletException {
-		PageUserKey cacheKey = new PageUserKey(rootPage, user);
 		final Cache cache = CacheFilter.getCache(request);
-		final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-		Map<PageUserKey, List<Task>> getBlockedTasksCache = getPageUserCache(cache, GET_BLOCKED_TASKS_CACHE_KEY);
-		List<Task> results = getBlockedTasksCache.get(cacheKey);
-		if(results == null) {
-			final long now = System.currentTimeMillis();
-			final List<Task> blockedTasks = new ArrayList<>();
-			final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-			CapturePage.traversePagesDepthFirst(
-				servletContext,
-				request,
-				response,
-				rootPage,
-				CaptureLevel.META,
-				(Page page, int depth) -> {
-					try {
-						for(Element element : page.getElements()) {
-							if(element instanceof Task) {
-								Task task = (Task)element;
-								TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-								if(
-									user == null
-									|| assignedTo != null
-								) {
-									StatusResult status = getStatus(
-										servletContext,
-										request,
-										response,
-										task,
-										cache,
-										statusCache
-									);
-									if(
-										!status.isCompletedSchedule()
-										&& !status.isReadySchedule()
-										&& !status.isFutureSchedule()
-									) {
-										Priority priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-										if(priority != Priority.FUTURE) {
-											if(
-												status.getDate() != null
-												&& assignedTo != null
-												&& assignedTo.getAfter().getCount() > 0
-											) {
-												// assignedTo "after"
-												Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-												assignedTo.getAfter().offset(effectiveDate);
-												if(now >= effectiveDate.getTimeInMillis()) {
-													blockedTasks.add(task);
-												}
-											} else {
-												// No time offset
-												blockedTasks.add(task);
-											}
-										}
+		final AsOf asOf = getAsOf(cache);
+		final Map<Task, StatusResult> statusCache = getStatusCache(cache, asOf);
+		final long now = asOf.getNow();
+		final int numPartitions = userMask == NO_USER_FILTER ? 1 : USERS.length;
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final List<Task>[] readyTasks = new List[numPartitions];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final List<Task>[] blockedTasks = new List[numPartitions];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final List<Task>[] futureTasks = new List[numPartitions];
+		for(int i = 0; i < numPartitions; i++) {
+			if(userMask == NO_USER_FILTER || (userMask & (1L << i)) != 0) {
+				readyTasks[i] = new ArrayList<>();
+				blockedTasks[i] = new ArrayList<>();
+				futureTasks[i] = new ArrayList<>();
+			}
+		}
+		final AtomicInteger pagesVisited = new AtomicInteger();
+		final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
+		TaskEvents.Traversal event = new TaskEvents.Traversal();
+		event.begin();
+		prefetchPages(servletContext, request, response, rootPage.getPageRef(), null);
+		CapturePage.traversePagesDepthFirst(
+			servletContext,
+			request,
+			response,
+			rootPage,
+			CaptureLevel.META,
+			(Page page, int depth) -> {
+				pagesVisited.incrementAndGet();
+				try {
+					for(Element element : page.getElements()) {
+						if(element instanceof Task) {
+							Task task = (Task)element;
+							TaskAssignments assignments = TaskAssignments.getAssignments(cache, task);
+							long users = userMask == NO_USER_FILTER ? NO_USER_FILTER : (assignments.getUsers() & userMask);
+							if(users != 0) {
+								StatusResult status = getStatus(
+									servletContext,
+									request,
+									response,
+									task,
+									cache,
+									asOf,
+									statusCache
+								);
+								if(users == NO_USER_FILTER) {
+									classifyTask(now, task, null, status, readyTasks[0], blockedTasks[0], futureTasks[0]);
+								} else {
+									for(long remaining = users; remaining != 0; remaining &= remaining - 1) {
+										int ordinal = Long.numberOfTrailingZeros(remaining);
+										classifyTask(now, task, assignments.getAfter(ordinal), status, readyTasks[ordinal], blockedTasks[ordinal], futureTasks[ordinal]);
 									}
 								}
 							}
 						}
-						return null;
-					} catch(TaskException e) {
-						throw new ServletException(e);
 					}
-				},
-				(Page page) -> page.getChildRefs(),
-				// Child in accessible book
-				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
-				null
-			);
-			results = Collections.unmodifiableList(blockedTasks);
-			getBlockedTasksCache.put(cacheKey, results);
+					return null;
+				} catch(TaskException e) {
+					throw new ServletException(e);
+				}
+			},
+			(Page page) -> page.getChildRefs(),
+			// Child in accessible book
+			(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
+			null
+		);
+		event.finish(operation, rootPage.getPageRef(), pagesVisited.get());
+		TaskMetrics.getInstance(servletContext).taskPartitionPagesVisited.record(pagesVisited.get());
+		TaskPartition[] partitions = new TaskPartition[numPartitions];
+		for(int i = 0; i < numPartitions; i++) {
+			if(readyTasks[i] != null) partitions[i] = new TaskPartition(readyTasks[i], blockedTasks[i], futureTasks[i]);
 		}
-		return results;
+		return partitions;
 	}
 
-	private static final String FUTURE_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getFutureTasks";
-
-	public static List<Task> getFutureTasks(
-		final ServletContext servletContext,
-		final HttpServletRequest request,
-		final HttpServletResponse response,
+	/**
+	 * Sorts all tasks under the given page that are visible to the given user
+	 * into ready, blocked, and future tasks, in a single traversal of the page tree.
+	 *
+	 * @param  user  When {@code null}, includes tasks regardless of assignment.
+	 */
+	public static TaskPartition getTaskPartition(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
 		Page rootPage,
-		final User user
+		User user
 	) throws IOException, ServletException {
 		PageUserKey cacheKey = new PageUserKey(rootPage, user);
-		final Cache cache = CacheFilter.getCache(request);
-		final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-		Map<PageUserKey, List<Task>> futureTasksCache = getPageUserCache(cache, FUTURE_TASKS_CACHE_KEY);
-		List<Task> results = futureTasksCache.get(cacheKey);
+		Map<PageUserKey, TaskPartition> taskPartitionCache = getPageUserCache(CacheFilter.getCache(request), GET_TASK_PARTITION_CACHE_KEY);
+		TaskPartition result = taskPartitionCache.get(cacheKey);
+		if(result == null) {
+			if(user == null) {
+				result = partitionTasks(servletContext, request, response, rootPage, NO_USER_FILTER, "getTaskPartition")[0];
+			} else {
+				result = partitionTasks(servletContext, request, response, rootPage, TaskAssignments.getMask(user), "getTaskPartition")[user.ordinal()];
+			}
+			taskPartitionCache.put(cacheKey, result);
+		}
+		return result;
+	}
+
+	private static final User[] USERS = User.values();
+
+	private static final long ALL_USERS_MASK = (1L << USERS.length) - 1;
+
+	/**
+	 * Sorts all tasks under the given page into ready, blocked, and future tasks
+	 * for every user, in a single traversal of the page tree.  The status of
+	 * each task is computed once, and each task is classified only for the users
+	 * it is assigned to.
+	 * <p>
+	 * The partition of each user is also cached, so subsequent calls to
+	 * {@link #getTaskPartition(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}
+	 * for the same page do not traverse the page tree again.
+	 * </p>
+	 *
+	 * @return  The partition for every user, including users without any tasks
+	 */
+	public static Map<User, TaskPartition> getTaskPartitions(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Page rootPage
+	) throws IOException, ServletException {
+		Map<PageUserKey, TaskPartition> taskPartitionCache = getPageUserCache(CacheFilter.getCache(request), GET_TASK_PARTITION_CACHE_KEY);
+		// Use cached partitions when all users already cached
+		Map<User, TaskPartition> results = new EnumMap<>(User.class);
+		for(User user : USERS) {
+			TaskPartition cached = taskPartitionCache.get(new PageUserKey(rootPage, user));
+			if(cached == null) {
+				results = null;
+				break;
+			}
+			results.put(user, cached);
+		}
 		if(results == null) {
-			final long now = System.currentTimeMillis();
-			final List<Task> futureTasks = new ArrayList<>();
-			final SemanticCMS semanticCMS = SemanticCMS.getInstance(servletContext);
-			CapturePage.traversePagesDepthFirst(
-				servletContext,
-				request,
-				response,
-				rootPage,
-				CaptureLevel.META,
-				(Page page, int depth) -> {
-					try {
-						for(Element element : page.getElements()) {
-							if(element instanceof Task) {
-								Task task = (Task)element;
-								TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-								if(
-									(
-										user == null
-										|| assignedTo != null
-									) && (
-										// When assignedTo "after" is non-zero, hide from this user
-										assignedTo == null
-										|| assignedTo.getAfter().getCount() == 0
-									)
-								) {
-									StatusResult status = getStatus(
-										servletContext,
-										request,
-										response,
-										task,
-										cache,
-										statusCache
-									);
-									boolean future = status.isFutureSchedule();
-									if(!future) {
-										Priority priority = TaskHtmlRenderer.getPriorityForStatus(now, task, status);
-										future = priority == Priority.FUTURE;
-									}
-									if(future) {
-										futureTasks.add(task);
-									}
-								}
-							}
-						}
-						return null;
-					} catch(TaskException e) {
-						throw new ServletException(e);
-					}
-				},
-				(Page page) -> page.getChildRefs(),
-				// Child in accessible book
-				(PageRef childPage) -> semanticCMS.getBook(childPage.getBookRef()).isAccessible(),
-				null
-			);
-			results = Collections.unmodifiableList(futureTasks);
-			futureTasksCache.put(cacheKey, results);
+			TaskPartition[] partitions = partitionTasks(servletContext, request, response, rootPage, ALL_USERS_MASK, "getTaskPartitions");
+			results = new EnumMap<>(User.class);
+			for(User user : USERS) {
+				TaskPartition partition = partitions[user.ordinal()];
+				results.put(user, partition);
+				taskPartitionCache.put(new PageUserKey(rootPage, user), partition);
+			}
 		}
-		return results;
+		return Collections.unmodifiableMap(results);
+	}
+
+	/**
+	 * @see  #getForecast(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.renderer.html.AsOf, int)
+	 */
+	public static TaskForecast getForecast(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		int days
+	) throws TaskException, ServletException, IOException {
+		return getForecast(
+			servletContext,
+			request,
+			response,
+			getAsOf(CacheFilter.getCache(request)),
+			days
+		);
+	}
+
+	/**
+	 * Finds the scheduled tasks due on each day of a window, across all tasks
+	 * in the {@link TaskIndex}.  The status of each task is computed once, as of
+	 * the first day, and the occurrences within the window are enumerated from
+	 * its schedule.
+	 *
+	 * @param  days  The number of days in the window, starting from the day of {@code asOf}
+	 */
+	public static TaskForecast getForecast(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		AsOf asOf,
+		int days
+	) throws TaskException, ServletException, IOException {
+		TaskForecast.Builder builder = new TaskForecast.Builder(asOf, days);
+		Cache cache = CacheFilter.getCache(request);
+		List<Task> scheduled = new ArrayList<>();
+		for(Task task : TaskIndex.getTaskIndex(servletContext, request, response).getTasks()) {
+			if(task.getOn() != null || task.getRecurring() != null) scheduled.add(task);
+		}
+		Map<Task, StatusResult> statuses = getMultipleStatuses(servletContext, request, response, scheduled, cache, asOf);
+		// Recorded while computing the statuses
+		Map<Task, Boolean> allDoBeforesCompletedCache = getAllDoBeforesCompletedCache(cache, asOf);
+		for(Task task : scheduled) {
+			Boolean allDoBeforesCompleted = allDoBeforesCompletedCache.get(task);
+			if(allDoBeforesCompleted == null) throw new AssertionError("Do Before completion not recorded for task: " + task);
+			builder.add(task, statuses.get(task), allDoBeforesCompleted);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Checks if there are any ready, blocked, or future tasks for the given user.
+	 *
+	 * @see  #getTaskPartition(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)
+	 */
+	public static boolean hasAssignedTask(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Page page,
+		User user
+	) throws ServletException, IOException {
+		return !getTaskPartition(servletContext, request, response, page, user).isEmpty();
+	}
+
+	/**
+	 * @see  #getTaskPartition(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)
+	 */
+	public static List<Task> getReadyTasks(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Page rootPage,
+		User user
+	) throws IOException, ServletException {
+		return getTaskPartition(servletContext, request, response, rootPage, user).getReadyTasks();
+	}
+
+	/**
+	 * @see  #getTaskPartition(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)
+	 */
+	public static List<Task> getBlockedTasks(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Page rootPage,
+		User user
+	) throws IOException, ServletException {
+		return getTaskPartition(servletContext, request, response, rootPage, user).getBlockedTasks();
+	}
+
+	/**
+	 * @see  #getTaskPartition(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)
+	 */
+	public static List<Task> getFutureTasks(
+		ServletContext servletContext,
+		HttpServletRequest request,
+		HttpServletResponse response,
+		Page rootPage,
+		User user
+	) throws IOException, ServletException {
+		return getTaskPartition(servletContext, request, response, rootPage, user).getFutureTasks();
 	}
 
 	/**